@@ -0,0 +1,59 @@
+package ru.saynurdinov.task_service.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Caffeine-backed regions of the Hibernate second-level cache. Each region is bounded in size and age,
+ * Hibernate fails on startup if an entity refers to a region that isn't created here.
+ * Hit and miss counts are published under the {@code cache.*} metrics with the region as {@code cache}.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(MeterRegistry meterRegistry,
+                                              @Value("${hibernate-cache.user.max-size}") long userMaxSize,
+                                              @Value("${hibernate-cache.user.expire-after-write}") Duration userExpireAfterWrite,
+                                              @Value("${hibernate-cache.task.max-size}") long taskMaxSize,
+                                              @Value("${hibernate-cache.task.expire-after-write}") Duration taskExpireAfterWrite,
+                                              @Value("${hibernate-cache.task-comments.max-size}") long taskCommentsMaxSize,
+                                              @Value("${hibernate-cache.task-comments.expire-after-write}") Duration taskCommentsExpireAfterWrite,
+                                              @Value("${hibernate-cache.comment.max-size}") long commentMaxSize,
+                                              @Value("${hibernate-cache.comment.expire-after-write}") Duration commentExpireAfterWrite) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        createRegion(cacheManager, meterRegistry, "user", userMaxSize, userExpireAfterWrite);
+        createRegion(cacheManager, meterRegistry, "task", taskMaxSize, taskExpireAfterWrite);
+        createRegion(cacheManager, meterRegistry, "task-comments", taskCommentsMaxSize, taskCommentsExpireAfterWrite);
+        createRegion(cacheManager, meterRegistry, "comment", commentMaxSize, commentExpireAfterWrite);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static void createRegion(CacheManager cacheManager, MeterRegistry meterRegistry,
+                                     String region, long maxSize, Duration expireAfterWrite) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        Cache<Object, Object> cache = cacheManager.createCache(region, configuration);
+        JCacheMetrics.monitor(meterRegistry, cache);
+    }
+}
@@ -8,6 +8,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -16,14 +17,18 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.saynurdinov.task_service.dto.CommentDTO;
 import ru.saynurdinov.task_service.dto.CreateCommentDTO;
 import ru.saynurdinov.task_service.dto.ResourceResponseDTO;
 import ru.saynurdinov.task_service.dto.UpdateCommentDTO;
+import ru.saynurdinov.task_service.projection.CollectionStamp;
 import ru.saynurdinov.task_service.service.CommentService;
+import ru.saynurdinov.task_service.util.ETagUtils;
 
 import java.util.List;
 
@@ -47,6 +52,7 @@ public class CommentController {
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved comments"),
+            @ApiResponse(responseCode = "304", description = "No comment changed since If-None-Match", content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid request parameters", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content),
             @ApiResponse(responseCode = "404", description = "Task not found", content = @Content)
@@ -54,7 +60,12 @@ public class CommentController {
     @GetMapping(produces = "application/json")
     public ResponseEntity<ResourceResponseDTO<List<CommentDTO>>> getAllByTaskId(@PathVariable("taskId") long taskId,
                                                                                 @RequestParam(value = "page", defaultValue = "0") int page,
-                                                                                @RequestParam(value = "size", defaultValue = "10") int size) {
+                                                                                @RequestParam(value = "size", defaultValue = "10") int size,
+                                                                                WebRequest request) {
+        CollectionStamp stamp = commentService.getStampOfAllByTaskId(taskId);
+        if (request.checkNotModified(ETagUtils.weak(stamp))) {
+            return null;
+        }
         return new ResponseEntity<>(commentService.getAllByTaskId(taskId, page, size), HttpStatus.OK);
     }
 
@@ -73,7 +84,8 @@ public class CommentController {
     @PostMapping(consumes = "application/json", produces = "application/json")
     public ResponseEntity<ResourceResponseDTO<CommentDTO>> create(@PathVariable("taskId") long taskId,
                                                                   @RequestBody @Valid CreateCommentDTO createCommentDTO) {
-        return new ResponseEntity<>(commentService.create(taskId, createCommentDTO), HttpStatus.CREATED);
+        ResourceResponseDTO<CommentDTO> response = commentService.create(taskId, createCommentDTO);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(ETagUtils.of(response.getBody().getVersion(), response.getBody().getUpdatedAt())).body(response);
     }
 
 
@@ -86,13 +98,17 @@ public class CommentController {
             @ApiResponse(responseCode = "400", description = "Invalid comment data", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content),
             @ApiResponse(responseCode = "404", description = "Task or comment not found", content = @Content),
-            @ApiResponse(responseCode = "403", description = "Access to comment denied", content = @Content)
+            @ApiResponse(responseCode = "403", description = "Access to comment denied", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Comment was modified since the If-Match ETag", content = @Content)
     })
     @PutMapping(value = "/{commentId}", consumes = "application/json", produces = "application/json")
     public ResponseEntity<ResourceResponseDTO<CommentDTO>> update(@PathVariable("taskId") long taskId,
                                                                   @PathVariable("commentId") long commentId,
-                                                                  @RequestBody @Valid UpdateCommentDTO updateCommentDTO) {
-        return new ResponseEntity<>(commentService.update(taskId, commentId, updateCommentDTO), HttpStatus.OK);
+                                                                  @RequestBody @Valid UpdateCommentDTO updateCommentDTO,
+                                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ResourceResponseDTO<CommentDTO> response = commentService.update(taskId, commentId, updateCommentDTO,
+                ETagUtils.parseIfMatch(ifMatch, "comment", commentId));
+        return ResponseEntity.ok().eTag(ETagUtils.of(response.getBody().getVersion(), response.getBody().getUpdatedAt())).body(response);
     }
 
 
@@ -105,11 +121,13 @@ public class CommentController {
             @ApiResponse(responseCode = "400", description = "Invalid request data", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content),
             @ApiResponse(responseCode = "404", description = "Task or comment not found", content = @Content),
-            @ApiResponse(responseCode = "403", description = "Access to comment denied", content = @Content)
+            @ApiResponse(responseCode = "403", description = "Access to comment denied", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Comment was modified since the If-Match ETag", content = @Content)
     })
     @DeleteMapping(value = "/{commentId}", produces = "application/json")
     public ResponseEntity<ResourceResponseDTO<CommentDTO>> delete(@PathVariable("taskId") long taskId,
-                                                                  @PathVariable("commentId") long commentId) {
-        return new ResponseEntity<>(commentService.delete(taskId, commentId), HttpStatus.OK);
+                                                                  @PathVariable("commentId") long commentId,
+                                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return new ResponseEntity<>(commentService.delete(taskId, commentId, ETagUtils.parseIfMatch(ifMatch, "comment", commentId)), HttpStatus.OK);
     }
 }
@@ -2,17 +2,26 @@ package ru.saynurdinov.task_service.controller;
 
 
 import io.jsonwebtoken.JwtException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import ru.saynurdinov.task_service.dto.ResponseDTO;
+import ru.saynurdinov.task_service.exception.FilterRequiredException;
+import ru.saynurdinov.task_service.exception.InvalidCursorException;
+import ru.saynurdinov.task_service.exception.PreconditionFailedException;
 import ru.saynurdinov.task_service.exception.ResourceNotFoundException;
+import ru.saynurdinov.task_service.exception.ServiceOverloadedException;
 import ru.saynurdinov.task_service.exception.UserAlreadyExistsException;
 
 import java.util.HashMap;
@@ -39,6 +48,30 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    ResponseEntity<ResponseDTO> handleInvalidCursorException(InvalidCursorException ex) {
+        ResponseDTO response = new ResponseDTO(ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(FilterRequiredException.class)
+    ResponseEntity<ResponseDTO> handleFilterRequiredException(FilterRequiredException ex) {
+        ResponseDTO response = new ResponseDTO(ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    ResponseEntity<ResponseDTO> handlePreconditionFailedException(PreconditionFailedException ex) {
+        ResponseDTO response = new ResponseDTO(ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    ResponseEntity<ResponseDTO> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        ResponseDTO response = new ResponseDTO("Resource was modified concurrently, fetch it again and retry");
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     ResponseEntity<ResponseDTO> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
         BindingResult bindingResult = ex.getBindingResult();
@@ -48,6 +81,28 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    ResponseEntity<ResponseDTO> handleHandlerMethodValidationException(HandlerMethodValidationException ex) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getAllValidationResults().forEach(result -> result.getResolvableErrors().forEach(
+                error -> errors.put(result.getMethodParameter().getParameterName(), error.getDefaultMessage())));
+        ResponseDTO response = new ResponseDTO(errors.toString());
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(MissingServletRequestParameterException.class)
+    ResponseEntity<ResponseDTO> handleMissingServletRequestParameterException(MissingServletRequestParameterException ex) {
+        ResponseDTO response = new ResponseDTO(ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+
+    @ExceptionHandler(HttpMediaTypeNotSupportedException.class)
+    ResponseEntity<ResponseDTO> handleHttpMediaTypeNotSupportedException(HttpMediaTypeNotSupportedException ex) {
+        ResponseDTO response = new ResponseDTO(ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+    }
+
 
     @ExceptionHandler(AuthenticationException.class)
     ResponseEntity<ResponseDTO> handleAuthenticationException(AuthenticationException ex) {
@@ -67,6 +122,14 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
     }
 
+    @ExceptionHandler(ServiceOverloadedException.class)
+    ResponseEntity<ResponseDTO> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        ResponseDTO response = new ResponseDTO(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body(response);
+    }
+
     @ExceptionHandler(Exception.class)
     ResponseEntity<ResponseDTO> handleException(Exception ex) {
         ResponseDTO response = new ResponseDTO(ex.getMessage());
@@ -7,8 +7,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,19 +23,34 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.saynurdinov.task_service.dto.BatchItemResultDTO;
+import ru.saynurdinov.task_service.dto.BulkChangeStatusDTO;
+import ru.saynurdinov.task_service.dto.BulkResultDTO;
 import ru.saynurdinov.task_service.dto.ChangeStatusDTO;
+import ru.saynurdinov.task_service.dto.CreateTaskBatchDTO;
 import ru.saynurdinov.task_service.dto.CreateTaskDTO;
+import ru.saynurdinov.task_service.dto.DataFormat;
+import ru.saynurdinov.task_service.dto.PageResponseDTO;
+import ru.saynurdinov.task_service.dto.ReassignTasksDTO;
 import ru.saynurdinov.task_service.dto.ResourceResponseDTO;
 import ru.saynurdinov.task_service.dto.TaskDTO;
+import ru.saynurdinov.task_service.dto.TaskFilter;
 import ru.saynurdinov.task_service.dto.UpdateTaskDTO;
-import ru.saynurdinov.task_service.entity.enums.TaskPriority;
-import ru.saynurdinov.task_service.entity.enums.TaskStatus;
+import ru.saynurdinov.task_service.projection.CollectionStamp;
+import ru.saynurdinov.task_service.projection.ResourceStamp;
+import ru.saynurdinov.task_service.service.TaskImportService;
 import ru.saynurdinov.task_service.service.TaskService;
+import ru.saynurdinov.task_service.util.ETagUtils;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/tasks")
@@ -39,11 +60,15 @@ import java.util.List;
 )
 public class TaskController {
 
+    private static final int MAX_SEARCH_SIZE = 100;
+
     private final TaskService taskService;
+    private final TaskImportService taskImportService;
 
     @Autowired
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService, TaskImportService taskImportService) {
         this.taskService = taskService;
+        this.taskImportService = taskImportService;
     }
 
 
@@ -51,82 +76,171 @@ public class TaskController {
     @Operation(
             summary = "Get all tasks by user ID",
             description = """
-                        Retrieve all tasks filtered by user ID, status, priority, page number and page size.
+                        Retrieve all tasks created by or assigned to a user, newest first.
                         If user ID is not provided, tasks of authenticated user are returned.
+                        Status, priority, deadline range, creator, executor and text filters are optional and combine with AND.
+                        Pass nextCursor of the previous response as cursor to get the next page.
+                        The page parameter is an offset kept for older clients and gets slower the deeper it goes.
                         """
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved tasks"),
+            @ApiResponse(responseCode = "304", description = "No matching task changed since If-None-Match", content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid request parameters", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content)
     })
     @GetMapping(produces = "application/json")
-    public ResponseEntity<ResourceResponseDTO<List<TaskDTO>>> getAll(
+    public ResponseEntity<PageResponseDTO<TaskDTO>> getAll(
             @RequestParam(value = "userId", required = false) Long userId,
-            @RequestParam(value = "status", required = false) TaskStatus status,
-            @RequestParam(value = "priority", required = false) TaskPriority priority,
+            @ParameterObject TaskFilter filter,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
-        return new ResponseEntity<>(taskService.getAllByUserId(userId, status, priority, page, size), HttpStatus.OK);
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            WebRequest request) {
+        CollectionStamp stamp = taskService.getStampOfAll(userId, filter);
+        if (request.checkNotModified(ETagUtils.weak(stamp))) {
+            return null;
+        }
+        return new ResponseEntity<>(taskService.getAllByUserId(userId, filter, cursor, page, size), HttpStatus.OK);
     }
 
     @Operation(
             summary = "Get all created tasks by user ID",
             description = """
-                        Retrieve all tasks created by a user, filtered by status, priority, page number and page size.
+                        Retrieve all tasks created by a user, newest first.
                         If user ID is not provided, tasks of authenticated user are returned.
+                        Status, priority, deadline range, creator, executor and text filters are optional and combine with AND.
+                        Pass nextCursor of the previous response as cursor to get the next page.
+                        The page parameter is an offset kept for older clients and gets slower the deeper it goes.
                         """
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved created tasks"),
+            @ApiResponse(responseCode = "304", description = "No matching task changed since If-None-Match", content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid request parameters", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content)
     })
     @GetMapping(value ="/created", produces = "application/json")
-    public ResponseEntity<ResourceResponseDTO<List<TaskDTO>>> getAllCreated(
+    public ResponseEntity<PageResponseDTO<TaskDTO>> getAllCreated(
             @RequestParam(value = "userId", required = false) Long userId,
-            @RequestParam(value = "status", required = false) TaskStatus status,
-            @RequestParam(value = "priority", required = false) TaskPriority priority,
+            @ParameterObject TaskFilter filter,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
-        return new ResponseEntity<>(taskService.getAllCreatedByAuthorId(userId, status, priority, page, size), HttpStatus.OK);
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            WebRequest request) {
+        CollectionStamp stamp = taskService.getStampOfAllCreated(userId, filter);
+        if (request.checkNotModified(ETagUtils.weak(stamp))) {
+            return null;
+        }
+        return new ResponseEntity<>(taskService.getAllCreatedByAuthorId(userId, filter, cursor, page, size), HttpStatus.OK);
     }
 
     @Operation(
             summary = "Get all assigned tasks by user ID",
             description = """
-                        Retrieve all tasks assigned to a user, filtered by status, priority, page number and page size.
+                        Retrieve all tasks assigned to a user, newest first.
                         If user ID is not provided, tasks of authenticated user are returned.
+                        Status, priority, deadline range, creator, executor and text filters are optional and combine with AND.
+                        Pass nextCursor of the previous response as cursor to get the next page.
+                        The page parameter is an offset kept for older clients and gets slower the deeper it goes.
                         """
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved assigned tasks"),
+            @ApiResponse(responseCode = "304", description = "No matching task changed since If-None-Match", content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid request parameters", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized access",content = @Content )
     })
     @GetMapping(value = "/assigned", produces = "application/json")
-    public ResponseEntity<ResourceResponseDTO<List<TaskDTO>>> getAllAssigned(
+    public ResponseEntity<PageResponseDTO<TaskDTO>> getAllAssigned(
             @RequestParam(value = "userId", required = false) Long userId,
-            @RequestParam(value = "status", required = false) TaskStatus status,
-            @RequestParam(value = "priority", required = false) TaskPriority priority,
+            @ParameterObject TaskFilter filter,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
-        return new ResponseEntity<>(taskService.getAllAssignedByAssigneeId(userId, status, priority, page, size), HttpStatus.OK);
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            WebRequest request) {
+        CollectionStamp stamp = taskService.getStampOfAllAssigned(userId, filter);
+        if (request.checkNotModified(ETagUtils.weak(stamp))) {
+            return null;
+        }
+        return new ResponseEntity<>(taskService.getAllAssignedByAssigneeId(userId, filter, cursor, page, size), HttpStatus.OK);
     }
 
 
+    @Operation(
+            summary = "Search tasks",
+            description = """
+                        Full-text search in the title and description of tasks created by or assigned to the authenticated user,
+                        most relevant first. Words are matched whole, "quoted phrases", or and -excluded words are supported.
+                        Pass nextCursor of the previous response as cursor to get the next page.
+                        Size is from 1 to 100.
+                        """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved matching tasks"),
+            @ApiResponse(responseCode = "400", description = "Invalid request parameters or size out of range", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content)
+    })
+    @GetMapping(value = "/search", produces = "application/json")
+    public ResponseEntity<PageResponseDTO<TaskDTO>> search(
+            @RequestParam(value = "q") String query,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10")
+            @Min(value = 1, message = "Size must be between 1 and " + MAX_SEARCH_SIZE)
+            @Max(value = MAX_SEARCH_SIZE, message = "Size must be between 1 and " + MAX_SEARCH_SIZE) int size) {
+        return new ResponseEntity<>(taskService.search(query, cursor, size), HttpStatus.OK);
+    }
+
+    @Operation(
+            summary = "Export tasks",
+            description = """
+                        Stream all tasks created by or assigned to a user as NDJSON (one task per line) or CSV, newest first.
+                        If user ID is not provided, tasks of authenticated user are exported.
+                        Status, priority, deadline range, creator, executor and text filters are optional and combine with AND.
+                        The export is written while it is read from the database, so its size is not limited.
+                        """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tasks are being streamed"),
+            @ApiResponse(responseCode = "400", description = "Invalid request parameters", content = @Content),
+            @ApiResponse(responseCode = "404", description = "User not found", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content)
+    })
+    @GetMapping(value = "/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "userId", required = false) Long userId,
+            @ParameterObject TaskFilter filter,
+            @RequestParam(value = "format", defaultValue = "NDJSON") DataFormat format) {
+        StreamingResponseBody body = taskService.export(userId, filter, format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("tasks." + format.getExtension()).build().toString())
+                .body(body);
+    }
+
     @Operation(
             summary = "Get task by ID",
             description = "Retrieve a task by its ID."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved task"),
+            @ApiResponse(responseCode = "304", description = "Task is not modified since If-None-Match or If-Modified-Since", content = @Content),
             @ApiResponse(responseCode = "404", description = "Task not found", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized access",content = @Content)
     })
     @GetMapping(value = "/{id}", produces = "application/json")
-    public ResponseEntity<ResourceResponseDTO<TaskDTO>> getById(@PathVariable("id") long id) {
-        return new ResponseEntity<>(taskService.getById(id), HttpStatus.OK);
+    public ResponseEntity<ResourceResponseDTO<TaskDTO>> getById(@PathVariable("id") long id, WebRequest request) {
+        Optional<ResourceStamp> stamp = taskService.getStampById(id);
+        if (stamp.isPresent() && request.checkNotModified(ETagUtils.of(stamp.get().version(), stamp.get().updatedAt()),
+                ETagUtils.lastModified(stamp.get().updatedAt()))) {
+            return null;
+        }
+        ResourceResponseDTO<TaskDTO> response = taskService.getById(id);
+        return ResponseEntity.ok()
+                .eTag(ETagUtils.of(response.getBody().getVersion(), response.getBody().getUpdatedAt()))
+                .lastModified(response.getBody().getUpdatedAt())
+                .body(response);
     }
 
 
@@ -141,7 +255,52 @@ public class TaskController {
     })
     @PostMapping(consumes = "application/json", produces = "application/json")
     public ResponseEntity<ResourceResponseDTO<TaskDTO>> create(@RequestBody @Valid CreateTaskDTO createTaskDTO) {
-        return new ResponseEntity<>(taskService.create(createTaskDTO), HttpStatus.CREATED);
+        ResourceResponseDTO<TaskDTO> response = taskService.create(createTaskDTO);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(ETagUtils.of(response.getBody().getVersion(), response.getBody().getUpdatedAt())).body(response);
+    }
+
+    @Operation(
+            summary = "Create tasks in batch",
+            description = """
+                         Create up to 1000 tasks in one request.
+                         Every item is validated on its own and gets its own result with status 201, 400 or 404,
+                         so invalid items don't prevent the others from being created.
+                         """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see the per-item results"),
+            @ApiResponse(responseCode = "400", description = "Empty or too large batch", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content)
+    })
+    @PostMapping(value = "/batch", consumes = "application/json", produces = "application/json")
+    public ResponseEntity<ResourceResponseDTO<List<BatchItemResultDTO<TaskDTO>>>> createBatch(@RequestBody @Valid CreateTaskBatchDTO createTaskBatchDTO) {
+        return new ResponseEntity<>(taskService.createBatch(createTaskBatchDTO.getTasks()), HttpStatus.OK);
+    }
+
+    @Operation(
+            summary = "Import tasks",
+            description = """
+                         Import tasks from an NDJSON (application/x-ndjson) or CSV (text/csv) body of any size.
+                         An NDJSON line is a task as in task creation and may contain its comments as "comments": [{"text": ...}].
+                         The first CSV row is a header with the names of the task creation fields, comments can't be imported from CSV.
+                         A task may carry at most 1000 comments.
+                         Rows are written in batches of up to 500 as they are read, fewer if the tasks carry many comments.
+                         The response is NDJSON with a progress line after each batch: totals so far and the rows of the batch
+                         rejected with status 400 or 404, or with 500 for every row of a batch the database failed to save.
+                         Batches reported in a progress line are saved even if the import breaks off later.
+                         """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import is running, see the progress lines"),
+            @ApiResponse(responseCode = "415", description = "Body is neither NDJSON nor CSV", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content)
+    })
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<StreamingResponseBody> importTasks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                             InputStream inputStream) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(DataFormat.NDJSON.getMediaType()))
+                .body(taskImportService.importTasks(inputStream, DataFormat.of(contentType)));
     }
 
     @Operation(
@@ -154,10 +313,14 @@ public class TaskController {
             @ApiResponse(responseCode = "404", description = "Task not found", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content),
             @ApiResponse(responseCode = "403", description = "Access to task is denied", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Task was modified since the If-Match ETag", content = @Content),
     })
     @PutMapping(value ="/{id}", consumes = "application/json", produces = "application/json")
-    public ResponseEntity<ResourceResponseDTO<TaskDTO>> update(@PathVariable("id") long id, @RequestBody @Valid UpdateTaskDTO updateTaskDTO) {
-        return new ResponseEntity<>(taskService.update(id, updateTaskDTO), HttpStatus.OK);
+    public ResponseEntity<ResourceResponseDTO<TaskDTO>> update(@PathVariable("id") long id,
+                                                               @RequestBody @Valid UpdateTaskDTO updateTaskDTO,
+                                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ResourceResponseDTO<TaskDTO> response = taskService.update(id, updateTaskDTO, ETagUtils.parseIfMatch(ifMatch, "task", id));
+        return ResponseEntity.ok().eTag(ETagUtils.of(response.getBody().getVersion(), response.getBody().getUpdatedAt())).body(response);
     }
 
 
@@ -174,10 +337,52 @@ public class TaskController {
             @ApiResponse(responseCode = "404", description = "Task not found", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content),
             @ApiResponse(responseCode = "403", description = "Access to task is denied", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Task was modified since the If-Match ETag", content = @Content),
     })
     @PatchMapping(value = "/{id}", consumes = "application/json", produces = "application/json" )
-    public ResponseEntity<ResourceResponseDTO<TaskDTO>> changeStatus(@PathVariable("id") long id, @RequestBody @Valid ChangeStatusDTO changeStatusDTO) {
-        return new ResponseEntity<>(taskService.changeStatus(id, changeStatusDTO), HttpStatus.OK);
+    public ResponseEntity<ResourceResponseDTO<TaskDTO>> changeStatus(@PathVariable("id") long id,
+                                                                     @RequestBody @Valid ChangeStatusDTO changeStatusDTO,
+                                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ResourceResponseDTO<TaskDTO> response = taskService.changeStatus(id, changeStatusDTO, ETagUtils.parseIfMatch(ifMatch, "task", id));
+        return ResponseEntity.ok().eTag(ETagUtils.of(response.getBody().getVersion(), response.getBody().getUpdatedAt())).body(response);
+    }
+
+    @Operation(
+            summary = "Change status of tasks in bulk",
+            description = """
+                         Change the status of up to 1000 tasks by their IDs in one request.
+                         Only tasks assigned to the authenticated user are changed,
+                         the other IDs are reported as denied or not found.
+                         """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statuses changed, see the affected, denied and not found IDs"),
+            @ApiResponse(responseCode = "400", description = "Invalid status data or too many IDs", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content)
+    })
+    @PatchMapping(value = "/status", consumes = "application/json", produces = "application/json")
+    public ResponseEntity<ResourceResponseDTO<BulkResultDTO>> changeStatusAll(@RequestBody @Valid BulkChangeStatusDTO bulkChangeStatusDTO) {
+        return new ResponseEntity<>(taskService.changeStatusAll(bulkChangeStatusDTO), HttpStatus.OK);
+    }
+
+    @Operation(
+            summary = "Reassign tasks in bulk",
+            description = """
+                         Assign all tasks of the authenticated user matching the filter to another executor.
+                         Filters are the same as in the task list and combine with AND, without filters all tasks are matched.
+                         Only created tasks are reassigned, matching tasks assigned by other users are reported as denied.
+                         """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tasks reassigned, see the affected and denied IDs"),
+            @ApiResponse(responseCode = "400", description = "Invalid request parameters", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Executor not found", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content)
+    })
+    @PatchMapping(value = "/executor", consumes = "application/json", produces = "application/json")
+    public ResponseEntity<ResourceResponseDTO<BulkResultDTO>> reassignAll(@ParameterObject TaskFilter filter,
+                                                                          @RequestBody @Valid ReassignTasksDTO reassignTasksDTO) {
+        return new ResponseEntity<>(taskService.reassignAll(filter, reassignTasksDTO.getExecutorId()), HttpStatus.OK);
     }
 
     @Operation(
@@ -189,11 +394,31 @@ public class TaskController {
             @ApiResponse(responseCode = "404", description = "Task not found", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content),
             @ApiResponse(responseCode = "403", description = "Access to task is denied", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Task was modified since the If-Match ETag", content = @Content),
     })
     @DeleteMapping(value ="/{id}", produces = "application/json")
-    public ResponseEntity<ResourceResponseDTO<TaskDTO>> delete(@PathVariable("id") long id) {
-        return new ResponseEntity<>(taskService.delete(id), HttpStatus.OK);
+    public ResponseEntity<ResourceResponseDTO<TaskDTO>> delete(@PathVariable("id") long id,
+                                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return new ResponseEntity<>(taskService.delete(id, ETagUtils.parseIfMatch(ifMatch, "task", id)), HttpStatus.OK);
     }
 
-
+    @Operation(
+            summary = "Delete tasks in bulk",
+            description = """
+                         Delete all tasks of the authenticated user matching the filter, together with their comments.
+                         Filters are the same as in the task list and combine with AND. At least one filter is required,
+                         deleting all tasks has to be confirmed with all=true.
+                         Only created tasks are deleted, matching tasks assigned by other users are reported as denied.
+                         """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tasks deleted, see the affected and denied IDs"),
+            @ApiResponse(responseCode = "400", description = "Invalid request parameters or no filter without all=true", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content)
+    })
+    @DeleteMapping(produces = "application/json")
+    public ResponseEntity<ResourceResponseDTO<BulkResultDTO>> deleteAll(@ParameterObject TaskFilter filter,
+                                                                       @RequestParam(value = "all", defaultValue = "false") boolean all) {
+        return new ResponseEntity<>(taskService.deleteAll(filter, all), HttpStatus.OK);
+    }
 }
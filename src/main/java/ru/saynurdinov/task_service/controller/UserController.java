@@ -12,11 +12,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.saynurdinov.task_service.dto.AuthResponseDTO;
 import ru.saynurdinov.task_service.dto.LoginDTO;
+import ru.saynurdinov.task_service.dto.RefreshTokenDTO;
 import ru.saynurdinov.task_service.dto.RegisterDTO;
+import ru.saynurdinov.task_service.dto.ResponseDTO;
 import ru.saynurdinov.task_service.service.UserService;
 
 @RestController
@@ -26,6 +29,8 @@ import ru.saynurdinov.task_service.service.UserService;
 )
 public class UserController {
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
     private final UserService userService;
 
     @Autowired
@@ -44,6 +49,8 @@ public class UserController {
             @ApiResponse(responseCode = "401", description = "Unauthorized - invalid credentials",
                     content = @Content),
             @ApiResponse(responseCode = "400", description = "Bad Request - validation errors",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Service Unavailable - too many authentication requests",
                     content = @Content)
     })
     @PostMapping(value = "/sign-in", produces = "application/json", consumes = "application/json")
@@ -60,6 +67,8 @@ public class UserController {
             @ApiResponse(responseCode = "409", description = "Conflict - user already exists",
                     content = @Content),
             @ApiResponse(responseCode = "400", description = "Bad Request - validation errors",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Service Unavailable - too many authentication requests",
                     content = @Content)
     })
     @PostMapping(value ="/sign-up", produces = "application/json", consumes = "application/json")
@@ -67,6 +76,42 @@ public class UserController {
         return new ResponseEntity<>(userService.addUser(registerDTO), HttpStatus.OK);
     }
 
+    @Operation(
+            summary = "Refresh tokens",
+            description = "Exchange a refresh token for a new access token and a new refresh token. The presented refresh token is revoked."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully refreshed"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid, expired or reused refresh token",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Bad Request - validation errors",
+                    content = @Content)
+    })
+    @PostMapping(value = "/refresh", produces = "application/json", consumes = "application/json")
+    public ResponseEntity<AuthResponseDTO> refresh(@RequestBody @Valid RefreshTokenDTO refreshTokenDTO) {
+        return new ResponseEntity<>(userService.refresh(refreshTokenDTO), HttpStatus.OK);
+    }
+
+    @Operation(
+            summary = "Sign out",
+            description = "Revoke a refresh token and, if it is sent in the Authorization header, the current access token."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully signed out"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid access token",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Bad Request - validation errors",
+                    content = @Content)
+    })
+    @PostMapping(value = "/sign-out", produces = "application/json", consumes = "application/json")
+    public ResponseEntity<ResponseDTO> signOut(@RequestBody @Valid RefreshTokenDTO refreshTokenDTO,
+                                               @RequestHeader(value = "Authorization", required = false) String authorization) {
+        String accessToken = authorization != null && authorization.startsWith(BEARER_PREFIX)
+                ? authorization.substring(BEARER_PREFIX.length())
+                : null;
+        return new ResponseEntity<>(userService.signOut(refreshTokenDTO, accessToken), HttpStatus.OK);
+    }
+
 
 
 
@@ -11,11 +11,13 @@ import lombok.Setter;
 @NoArgsConstructor
 public class AuthResponseDTO extends ResponseDTO {
     private String jwtToken;
+    private String refreshToken;
     private UserDTO userDTO;
 
-    public AuthResponseDTO(String message, String jwtToken, UserDTO userDTO) {
+    public AuthResponseDTO(String message, String jwtToken, String refreshToken, UserDTO userDTO) {
         super(message);
         this.jwtToken = jwtToken;
+        this.refreshToken = refreshToken;
         this.userDTO = userDTO;
     }
 }
@@ -0,0 +1,23 @@
+package ru.saynurdinov.task_service.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Outcome of one item of a batch request, {@code index} is its position in the request.
+ * {@code status} is the HTTP status the item would have got on its own.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchItemResultDTO<T> {
+
+    private int index;
+    private int status;
+    private String message;
+    private T body;
+}
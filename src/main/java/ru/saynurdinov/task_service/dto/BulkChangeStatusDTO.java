@@ -0,0 +1,29 @@
+package ru.saynurdinov.task_service.dto;
+
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import ru.saynurdinov.task_service.entity.enums.TaskStatus;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkChangeStatusDTO {
+
+    public static final int MAX_SIZE = 1000;
+
+    @NotEmpty(message = "Ids can't be empty")
+    @Size(max = MAX_SIZE, message = "Status of at most " + MAX_SIZE + " tasks can be changed at once")
+    private List<@NotNull(message = "Id can't be null") Long> ids;
+
+    @NotNull(message = "Status is required")
+    private TaskStatus taskStatus;
+}
@@ -0,0 +1,24 @@
+package ru.saynurdinov.task_service.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Outcome of a set-based operation: ids of the changed tasks, of the tasks the user may not change
+ * and, for requests by id, of the tasks that don't exist.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkResultDTO {
+
+    private List<Long> affectedIds;
+    private List<Long> deniedIds;
+    private List<Long> notFoundIds;
+}
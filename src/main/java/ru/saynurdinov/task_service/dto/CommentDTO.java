@@ -6,6 +6,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,5 +18,7 @@ public class CommentDTO {
     private String text;
     private UserDTO owner;
     private long taskId;
+    private long version;
+    private Instant updatedAt;
 }
 
@@ -0,0 +1,27 @@
+package ru.saynurdinov.task_service.dto;
+
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CreateTaskBatchDTO {
+
+    public static final int MAX_SIZE = 1000;
+
+    /**
+     * Items are validated one by one, an invalid item is reported in its result and doesn't fail the batch.
+     */
+    @NotEmpty(message = "Tasks can't be empty")
+    @Size(max = MAX_SIZE, message = "At most " + MAX_SIZE + " tasks can be created at once")
+    private List<CreateTaskDTO> tasks;
+}
@@ -0,0 +1,31 @@
+package ru.saynurdinov.task_service.dto;
+
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+import java.util.Arrays;
+
+/**
+ * Formats of task exports and imports.
+ */
+@Getter
+public enum DataFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    DataFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public static DataFormat of(MediaType mediaType) {
+        return Arrays.stream(values())
+                .filter(format -> MediaType.parseMediaType(format.mediaType).isCompatibleWith(mediaType))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported format " + mediaType));
+    }
+}
@@ -0,0 +1,28 @@
+package ru.saynurdinov.task_service.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One line of the import response, written after every batch. Counters are totals since the start,
+ * {@code errors} are the rows rejected since the previous line, {@code index} of an error is the row number.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportProgressDTO {
+
+    private long rowsRead;
+    private long tasksImported;
+    private long commentsImported;
+    private long rowsFailed;
+    private List<BatchItemResultDTO<Void>> errors = new ArrayList<>();
+    private boolean done;
+}
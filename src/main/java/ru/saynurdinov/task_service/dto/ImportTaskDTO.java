@@ -0,0 +1,26 @@
+package ru.saynurdinov.task_service.dto;
+
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Imported task with the comments to create under it, written by the importing user.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ImportTaskDTO extends CreateTaskDTO {
+
+    public static final int MAX_COMMENTS = 1000;
+
+    @Valid
+    @Size(max = MAX_COMMENTS, message = "At most " + MAX_COMMENTS + " comments can be imported with a task")
+    private List<@NotNull(message = "Comment can't be null") CreateCommentDTO> comments;
+}
@@ -0,0 +1,20 @@
+package ru.saynurdinov.task_service.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class PageResponseDTO<T> extends ResourceResponseDTO<List<T>> {
+
+    private String nextCursor;
+
+    public PageResponseDTO(String message, List<T> body, String nextCursor) {
+        super(message, body);
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.saynurdinov.task_service.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReassignTasksDTO {
+
+    @NotNull(message = "Executor is required")
+    private Long executorId;
+}
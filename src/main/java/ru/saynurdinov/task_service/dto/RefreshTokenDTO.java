@@ -0,0 +1,17 @@
+package ru.saynurdinov.task_service.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshTokenDTO {
+
+    @NotBlank(message = "Refresh token can't be blank")
+    private String refreshToken;
+}
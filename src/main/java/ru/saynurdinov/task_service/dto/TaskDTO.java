@@ -7,6 +7,7 @@ import lombok.Setter;
 import ru.saynurdinov.task_service.entity.enums.TaskPriority;
 import ru.saynurdinov.task_service.entity.enums.TaskStatus;
 
+import java.time.Instant;
 import java.util.List;
 
 @Getter
@@ -22,5 +23,8 @@ public class TaskDTO {
     private TaskStatus status;
     private UserDTO creator;
     private UserDTO executor;
-    private List<CommentListItemDTO> comments;
+    private int commentCount;
+    private List<CommentListItemDTO> latestComments;
+    private long version;
+    private Instant updatedAt;
 }
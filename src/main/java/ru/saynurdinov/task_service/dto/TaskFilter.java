@@ -0,0 +1,47 @@
+package ru.saynurdinov.task_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+import ru.saynurdinov.task_service.entity.enums.TaskPriority;
+import ru.saynurdinov.task_service.entity.enums.TaskStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional task list filters bound from query parameters. Fields left null are not filtered on.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TaskFilter {
+
+    private TaskStatus status;
+
+    private TaskPriority priority;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime deadlineFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime deadlineTo;
+
+    private Long creatorId;
+
+    private Long executorId;
+
+    private String text;
+
+    /**
+     * Whether no filter is set, so that every task would match. A blank text doesn't filter either.
+     */
+    public boolean isEmpty() {
+        return status == null && priority == null && deadlineFrom == null && deadlineTo == null
+                && creatorId == null && executorId == null && (text == null || text.isBlank());
+    }
+}
@@ -2,21 +2,35 @@ package ru.saynurdinov.task_service.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.UpdateTimestamp;
 
-import java.util.Objects;
+import java.time.Instant;
 
+
+/**
+ * Cached so that the {@code task-comments} region of {@code Task.comments} resolves its ids from memory.
+ * Comments removed by the cascade of a task delete are evicted in {@link ru.saynurdinov.task_service.repository.TaskRepositoryCustom}.
+ */
 @Entity
 @Table(name = "comments")
 @Getter
@@ -24,10 +38,12 @@ import java.util.Objects;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "comment")
 public class Comment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comment_seq")
+    @SequenceGenerator(name = "comment_seq", sequenceName = "comment_seq", allocationSize = 50)
     @Column(name = "comment_id")
     private long id;
 
@@ -35,29 +51,35 @@ public class Comment {
     @NotBlank
     private String text;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     @JoinColumn(name = "owner_id", referencedColumnName = "user_id", nullable = false)
     private User owner;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     @JoinColumn(name = "task_id", referencedColumnName = "task_id", nullable = false)
     private Task task;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Comment comment)) return false;
 
-        return id == comment.id &&
-                Objects.equals(text, comment.text) &&
-                Objects.equals(owner, comment.owner);
+        return getId() != 0 && getId() == comment.getId();
     }
 
     @Override
-    public int hashCode() {
-        int result = Long.hashCode(id);
-        result = 31 * result + Objects.hashCode(text);
-        result = 31 * result + Objects.hashCode(owner);
-        return result;
+    public final int hashCode() {
+        return Comment.class.hashCode();
     }
 }
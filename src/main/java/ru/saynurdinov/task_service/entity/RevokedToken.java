@@ -0,0 +1,47 @@
+package ru.saynurdinov.task_service.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Id of a revoked access token. The row is only needed until the token itself expires.
+ */
+@Entity
+@Table(name = "revoked_tokens")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RevokedToken {
+
+    @Id
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RevokedToken revokedToken)) return false;
+
+        return Objects.equals(tokenId, revokedToken.tokenId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(tokenId);
+    }
+}
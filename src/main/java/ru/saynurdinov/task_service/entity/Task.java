@@ -1,17 +1,19 @@
 package ru.saynurdinov.task_service.entity;
 
-import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
@@ -19,12 +21,18 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.UpdateTimestamp;
 import ru.saynurdinov.task_service.entity.enums.TaskPriority;
 import ru.saynurdinov.task_service.entity.enums.TaskStatus;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Objects;
 
 @Entity
 @Table(name = "tasks")
@@ -33,10 +41,12 @@ import java.util.Objects;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "task")
 public class Task {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+    @SequenceGenerator(name = "task_seq", sequenceName = "task_seq", allocationSize = 50)
     @Column(name = "task_id")
     private long id;
 
@@ -59,43 +69,55 @@ public class Task {
     @Future
     private LocalDateTime deadline;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     @JoinColumn(name = "creator_id", referencedColumnName = "user_id", nullable = false)
     private User creator;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     @JoinColumn(name = "executor_id", referencedColumnName = "user_id", nullable = false)
     private User executor;
 
-    @OneToMany(mappedBy = "task", cascade = CascadeType.REMOVE, orphanRemoval = true)
+    /**
+     * Maintained only by {@link ru.saynurdinov.task_service.repository.TaskRepositoryCustom#addToCommentCount},
+     * so saving a task never writes back a stale count.
+     */
+    @Column(name = "comment_count", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private int commentCount;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    /**
+     * Comments are removed by the ON DELETE CASCADE of their foreign key, not by Hibernate,
+     * which would load and delete them one by one.
+     */
+    @OneToMany(mappedBy = "task")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "task-comments")
     private List<Comment> comments;
 
+    /**
+     * Identity is the primary key only, so comparing tasks never touches associations or lazy collections.
+     * Transient instances are equal only to themselves.
+     */
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Task task)) return false;
 
-        return id == task.id && Objects.equals(title, task.title) &&
-                Objects.equals(description, task.description) &&
-                Objects.equals(status, task.status) &&
-                Objects.equals(priority, task.priority) &&
-                Objects.equals(deadline, task.deadline) &&
-                Objects.equals(creator, task.creator) &&
-                Objects.equals(executor, task.executor) &&
-                Objects.equals(comments, task.comments);
+        return getId() != 0 && getId() == task.getId();
     }
 
     @Override
-    public int hashCode() {
-        int result = Long.hashCode(id);
-        result = 31 * result + Objects.hashCode(title);
-        result = 31 * result + Objects.hashCode(description);
-        result = 31 * result + Objects.hashCode(status);
-        result = 31 * result + Objects.hashCode(priority);
-        result = 31 * result + Objects.hashCode(deadline);
-        result = 31 * result + Objects.hashCode(creator);
-        result = 31 * result + Objects.hashCode(executor);
-        result = 31 * result + Objects.hashCode(comments);
-        return result;
+    public final int hashCode() {
+        return Task.class.hashCode();
     }
 }
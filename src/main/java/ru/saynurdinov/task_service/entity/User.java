@@ -1,6 +1,5 @@
 package ru.saynurdinov.task_service.entity;
 
-import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -15,9 +14,11 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.List;
-import java.util.Objects;
 
 @Entity
 @Table(name = "users")
@@ -26,6 +27,7 @@ import java.util.Objects;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 public class User {
 
     @Id
@@ -46,13 +48,17 @@ public class User {
     @NotBlank
     private String password;
 
-    @OneToMany(mappedBy = "creator", cascade = CascadeType.REMOVE, orphanRemoval = true)
+    @Column(name = "token_version", nullable = false)
+    @ColumnDefault("0")
+    private int tokenVersion;
+
+    @OneToMany(mappedBy = "creator")
     private List<Task> createdTasks;
 
-    @OneToMany(mappedBy = "executor", cascade = CascadeType.REMOVE, orphanRemoval = true)
+    @OneToMany(mappedBy = "executor")
     private List<Task> assignedTasks;
 
-    @OneToMany(mappedBy = "owner", cascade = CascadeType.REMOVE, orphanRemoval = true)
+    @OneToMany(mappedBy = "owner")
     private List<Comment> comments;
 
     @Override
@@ -60,18 +66,11 @@ public class User {
         if (this == o) return true;
         if (!(o instanceof User user)) return false;
 
-        return id == user.id &&
-                Objects.equals(username, user.username) &&
-                Objects.equals(email, user.email) &&
-                Objects.equals(password, user.password);
+        return getId() != 0 && getId() == user.getId();
     }
 
     @Override
-    public int hashCode() {
-        int result = Long.hashCode(id);
-        result = 31 * result + Objects.hashCode(username);
-        result = 31 * result + Objects.hashCode(email);
-        result = 31 * result + Objects.hashCode(password);
-        return result;
+    public final int hashCode() {
+        return User.class.hashCode();
     }
 }
@@ -0,0 +1,12 @@
+package ru.saynurdinov.task_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class FilterRequiredException extends RuntimeException {
+
+    public FilterRequiredException(String confirmationParameter) {
+        super(String.format("At least one filter is required, pass %s=true to match all tasks", confirmationParameter));
+    }
+}
@@ -0,0 +1,12 @@
+package ru.saynurdinov.task_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String resourceName, long id) {
+        super(String.format("%s with id %d was modified, fetch it again and retry", resourceName, id));
+    }
+}
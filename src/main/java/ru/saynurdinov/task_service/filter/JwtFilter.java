@@ -1,16 +1,22 @@
 package ru.saynurdinov.task_service.filter;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import ru.saynurdinov.task_service.security.AuthenticatedUser;
+import ru.saynurdinov.task_service.security.TokenRevocationList;
+import ru.saynurdinov.task_service.security.TokenVersionRegistry;
 import ru.saynurdinov.task_service.util.JwtUtils;
 
 import java.io.IOException;
@@ -22,11 +28,18 @@ public class JwtFilter extends OncePerRequestFilter {
     private static final String AUTH_HEADER = "Authorization";
     private final UserDetailsService userDetailsService;
     private final JwtUtils jwtUtils;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final TokenRevocationList tokenRevocationList;
+    private final boolean stateless;
 
     @Autowired
-    public JwtFilter(UserDetailsService userDetailsService, JwtUtils jwtUtils) {
+    public JwtFilter(UserDetailsService userDetailsService, JwtUtils jwtUtils, TokenVersionRegistry tokenVersionRegistry,
+                     TokenRevocationList tokenRevocationList, @Value("${jwt.stateless}") boolean stateless) {
         this.userDetailsService = userDetailsService;
         this.jwtUtils = jwtUtils;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.tokenRevocationList = tokenRevocationList;
+        this.stateless = stateless;
     }
 
     @Override
@@ -37,11 +50,26 @@ public class JwtFilter extends OncePerRequestFilter {
         String header = request.getHeader(AUTH_HEADER);
         if (header != null && header.startsWith(BEARER_PREFIX)) {
             String token = header.substring(BEARER_PREFIX.length());
-            UserDetails userDetails = userDetailsService.loadUserByUsername(jwtUtils.getClaims(token).getSubject());
+            UserDetails userDetails = loadPrincipal(jwtUtils.getClaims(token));
             SecurityContextHolder.getContext().setAuthentication(
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities())
             );
         }
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails loadPrincipal(Claims claims) {
+        if (tokenRevocationList.isRevoked(claims.getId())) {
+            throw new JwtException("Token has been revoked");
+        }
+        Long userId = jwtUtils.getUserId(claims);
+        if (stateless && userId != null) {
+            Integer version = jwtUtils.getTokenVersion(claims);
+            if (version == null || version != tokenVersionRegistry.getCurrentVersion(userId)) {
+                throw new JwtException("Token is no longer valid");
+            }
+            return new AuthenticatedUser(userId, claims.getSubject());
+        }
+        return userDetailsService.loadUserByUsername(claims.getSubject());
+    }
 }
@@ -5,12 +5,18 @@ import org.mapstruct.Mapping;
 import ru.saynurdinov.task_service.dto.CommentDTO;
 import ru.saynurdinov.task_service.dto.CommentListItemDTO;
 import ru.saynurdinov.task_service.entity.Comment;
+import ru.saynurdinov.task_service.projection.CommentPreview;
 
 @Mapper(componentModel = "spring", uses = {UserMapper.class})
 public interface CommentMapper {
 
     CommentListItemDTO toListItemDTO(Comment comment);
 
+    @Mapping(target = "owner.id", source = "ownerId")
+    @Mapping(target = "owner.username", source = "ownerUsername")
+    @Mapping(target = "owner.email", source = "ownerEmail")
+    CommentListItemDTO toListItemDTO(CommentPreview comment);
+
     @Mapping(target = "taskId", ignore = true)
     CommentDTO toDTO(Comment comment);
 }
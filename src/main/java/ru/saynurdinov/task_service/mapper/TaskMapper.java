@@ -1,11 +1,24 @@
 package ru.saynurdinov.task_service.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import ru.saynurdinov.task_service.dto.TaskDTO;
 import ru.saynurdinov.task_service.entity.Task;
+import ru.saynurdinov.task_service.projection.CommentPreview;
+import ru.saynurdinov.task_service.projection.TaskView;
+
+import java.util.List;
 
 @Mapper(componentModel = "spring", uses = {UserMapper.class, CommentMapper.class})
 public interface TaskMapper {
 
-    TaskDTO toDTO(Task task);
+    TaskDTO toDTO(Task task, List<CommentPreview> latestComments);
+
+    @Mapping(target = "creator.id", source = "task.creatorId")
+    @Mapping(target = "creator.username", source = "task.creatorUsername")
+    @Mapping(target = "creator.email", source = "task.creatorEmail")
+    @Mapping(target = "executor.id", source = "task.executorId")
+    @Mapping(target = "executor.username", source = "task.executorUsername")
+    @Mapping(target = "executor.email", source = "task.executorEmail")
+    TaskDTO toDTO(TaskView task, List<CommentPreview> latestComments);
 }
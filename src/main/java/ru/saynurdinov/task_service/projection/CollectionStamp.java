@@ -0,0 +1,12 @@
+package ru.saynurdinov.task_service.projection;
+
+import java.time.Instant;
+
+/**
+ * Row count and latest modification time of everything a list query matches.
+ * Any insert, update or delete of a matching row changes one of them.
+ *
+ * @param lastUpdatedAt {@code null} when nothing matches
+ */
+public record CollectionStamp(long count, Instant lastUpdatedAt) {
+}
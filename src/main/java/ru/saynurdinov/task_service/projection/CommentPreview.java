@@ -0,0 +1,19 @@
+package ru.saynurdinov.task_service.projection;
+
+/**
+ * Read-only comment row with its owner, used for comment previews of tasks.
+ */
+public interface CommentPreview {
+
+    long getId();
+
+    String getText();
+
+    long getTaskId();
+
+    long getOwnerId();
+
+    String getOwnerUsername();
+
+    String getOwnerEmail();
+}
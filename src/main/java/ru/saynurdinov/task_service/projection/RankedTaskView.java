@@ -0,0 +1,7 @@
+package ru.saynurdinov.task_service.projection;
+
+/**
+ * Search hit: the task and its relevance to the query, higher is better.
+ */
+public record RankedTaskView(TaskView task, float rank) {
+}
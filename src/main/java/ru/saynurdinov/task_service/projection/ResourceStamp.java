@@ -0,0 +1,9 @@
+package ru.saynurdinov.task_service.projection;
+
+import java.time.Instant;
+
+/**
+ * Version and modification time of a single row, enough to answer a conditional GET without loading it.
+ */
+public record ResourceStamp(long version, Instant updatedAt) {
+}
@@ -0,0 +1,26 @@
+package ru.saynurdinov.task_service.projection;
+
+import ru.saynurdinov.task_service.entity.enums.TaskPriority;
+import ru.saynurdinov.task_service.entity.enums.TaskStatus;
+
+import java.time.Instant;
+
+/**
+ * Read-only row of a task with its creator and executor, selected straight from the query
+ * without creating managed entities.
+ */
+public record TaskView(long id,
+                       String title,
+                       String description,
+                       TaskPriority priority,
+                       TaskStatus status,
+                       int commentCount,
+                       long creatorId,
+                       String creatorUsername,
+                       String creatorEmail,
+                       long executorId,
+                       String executorUsername,
+                       String executorEmail,
+                       long version,
+                       Instant updatedAt) {
+}
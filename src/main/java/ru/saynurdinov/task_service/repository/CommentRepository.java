@@ -2,10 +2,43 @@ package ru.saynurdinov.task_service.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.saynurdinov.task_service.entity.Comment;
+import ru.saynurdinov.task_service.projection.CollectionStamp;
+import ru.saynurdinov.task_service.projection.CommentPreview;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
+    @EntityGraph(attributePaths = "owner")
     Slice<Comment> findByTaskId(long id, Pageable pageable);
+
+    @Query("SELECT new ru.saynurdinov.task_service.projection.CollectionStamp(count(c), max(c.updatedAt)) " +
+            "FROM Comment c WHERE c.task.id = :taskId")
+    CollectionStamp findStampByTaskId(@Param("taskId") long taskId);
+
+    /**
+     * The latest {@code limit} comments of each task, read backwards from the (task_id, comment_id) index,
+     * so the cost doesn't depend on how many comments a task has.
+     */
+    @Query(value = """
+            SELECT c.comment_id AS "id", c.text AS "text", c.task_id AS "taskId",
+                   u.user_id AS "ownerId", u.username AS "ownerUsername", u.email AS "ownerEmail"
+            FROM tasks t
+            CROSS JOIN LATERAL (
+                SELECT * FROM comments
+                WHERE comments.task_id = t.task_id
+                ORDER BY comments.comment_id DESC
+                LIMIT :limit
+            ) c
+            JOIN users u ON u.user_id = c.owner_id
+            WHERE t.task_id IN (:taskIds)
+            ORDER BY c.task_id, c.comment_id DESC
+            """, nativeQuery = true)
+    List<CommentPreview> findLatestByTaskIds(@Param("taskIds") Collection<Long> taskIds, @Param("limit") int limit);
 }
@@ -1,44 +1,37 @@
 package ru.saynurdinov.task_service.repository;
 
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.saynurdinov.task_service.entity.Task;
-import ru.saynurdinov.task_service.entity.enums.TaskPriority;
-import ru.saynurdinov.task_service.entity.enums.TaskStatus;
-
-
-public interface TaskRepository extends JpaRepository<Task, Long> {
-
-    @Query("SELECT t FROM Task t WHERE " +
-            "(t.creator.id = :creatorId) AND " +
-            "(:status IS NULL OR t.status = :status) AND " +
-            "(:priority IS NULL OR t.priority = :priority)")
-    Slice<Task> findByCreatorId(@Param("creatorId") long creatorId,
-                                @Param("status") TaskStatus status,
-                                @Param("priority") TaskPriority priority,
-                                Pageable pageable);
-
-    @Query("SELECT t FROM Task t WHERE " +
-            "(t.executor.id = :executorId) AND " +
-            "(:status IS NULL OR t.status = :status) AND " +
-            "(:priority IS NULL OR t.priority = :priority)")
-    Slice<Task> findByExecutorId(@Param("executorId") long executorId ,
-                                 @Param("status") TaskStatus status,
-                                 @Param("priority") TaskPriority priority,
-                                 Pageable pageable);
-
-    @Query("SELECT t FROM Task t WHERE " +
-            "(t.executor.id = :userId OR t.creator.id = :userId) AND " +
-            "(:status IS NULL OR t.status = :status) AND " +
-            "(:priority IS NULL OR t.priority = :priority)")
-    Slice<Task> findAllByUserId(@Param("userId") long userId ,
-                                @Param("status") TaskStatus status,
-                                @Param("priority") TaskPriority priority,
-                                Pageable pageable);
+import ru.saynurdinov.task_service.projection.ResourceStamp;
+import ru.saynurdinov.task_service.projection.TaskView;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
-}
 
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
+
+    @Override
+    @EntityGraph(attributePaths = {"creator", "executor"})
+    Optional<Task> findById(Long id);
+
+    @Query("SELECT new ru.saynurdinov.task_service.projection.TaskView(" +
+            "t.id, t.title, t.description, t.priority, t.status, t.commentCount, " +
+            "c.id, c.username, c.email, e.id, e.username, e.email, t.version, t.updatedAt) " +
+            "FROM Task t JOIN t.creator c JOIN t.executor e WHERE t.id = :id")
+    Optional<TaskView> findViewById(@Param("id") long id);
+
+    @Query("SELECT new ru.saynurdinov.task_service.projection.ResourceStamp(t.version, t.updatedAt) " +
+            "FROM Task t WHERE t.id = :id")
+    Optional<ResourceStamp> findStampById(@Param("id") long id);
+
+    @Query("SELECT t.executor.id FROM Task t WHERE t.id = :id")
+    Optional<Long> findExecutorIdById(@Param("id") long id);
+
+    @Query("SELECT t.id FROM Task t WHERE t.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+}
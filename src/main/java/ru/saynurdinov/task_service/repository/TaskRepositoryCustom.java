@@ -0,0 +1,100 @@
+package ru.saynurdinov.task_service.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.saynurdinov.task_service.dto.TaskFilter;
+import ru.saynurdinov.task_service.entity.Task;
+import ru.saynurdinov.task_service.entity.enums.TaskStatus;
+import ru.saynurdinov.task_service.projection.CollectionStamp;
+import ru.saynurdinov.task_service.projection.RankedTaskView;
+import ru.saynurdinov.task_service.projection.TaskView;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface TaskRepositoryCustom {
+
+    /**
+     * Keyset page: at most {@code limit} tasks matching {@code specification} with id below {@code beforeId},
+     * newest first.
+     */
+    List<TaskView> findAllBefore(Specification<Task> specification, long beforeId, int limit);
+
+    /**
+     * Full-text search among the tasks created by or assigned to {@code userId}, most relevant first.
+     * The query is parsed with {@code websearch_to_tsquery}, so quotes, {@code or} and {@code -} work as on search engines.
+     *
+     * @param afterRank rank of the last hit of the previous page, {@code null} for the first page
+     * @param afterId   id of the last hit of the previous page, ignored for the first page
+     */
+    List<RankedTaskView> search(long userId, String query, Float afterRank, long afterId, int limit);
+
+    /**
+     * All tasks matching {@code specification}, newest first, read from a forward-only cursor
+     * {@code fetchSize} rows at a time. Must be consumed and closed inside a transaction.
+     */
+    Stream<TaskView> streamAll(Specification<Task> specification, int fetchSize);
+
+    /**
+     * Offset page kept for the legacy {@code page} parameter, newest first.
+     */
+    List<TaskView> findAll(Specification<Task> specification, int offset, int limit);
+
+    /**
+     * Count and latest updatedAt of the tasks matching {@code specification}, computed in the database.
+     */
+    CollectionStamp findStamp(Specification<Task> specification);
+
+    /**
+     * Ids of the tasks matching {@code specification}, newest first.
+     */
+    List<Long> findIds(Specification<Task> specification);
+
+    /**
+     * Sets the status of a task assigned to {@code executorId} in a single statement and bumps its version.
+     *
+     * @param expectedETags ETags one of which the task must still have, {@code null} for an unconditional update
+     * @return the updated task, or empty when no task with this id and version is assigned to the executor
+     */
+    Optional<TaskView> updateStatus(long id, long executorId, TaskStatus status, Set<String> expectedETags);
+
+    /**
+     * Sets the status of those of {@code ids} that are assigned to {@code executorId} in a single statement
+     * and bumps their versions.
+     *
+     * @return ids of the updated tasks
+     */
+    List<Long> updateStatusAll(Collection<Long> ids, long executorId, TaskStatus status);
+
+    /**
+     * Comments are part of the task representation (count and previews), so comment writes move its updatedAt
+     * without bumping the version used for If-Match.
+     */
+    void addToCommentCount(long id, int delta, Instant updatedAt);
+
+    void touch(long id, Instant updatedAt);
+
+    /**
+     * Deletes a task loaded in the current transaction, its comments go with it by ON DELETE CASCADE.
+     */
+    void deleteWithComments(Task task);
+
+    /**
+     * Moves the tasks created by {@code creatorId} that match {@code filter} to another executor
+     * in a single statement and bumps their versions.
+     *
+     * @return ids of the reassigned tasks, newest first
+     */
+    List<Long> reassignAll(long creatorId, TaskFilter filter, long executorId);
+
+    /**
+     * Deletes the tasks created by {@code creatorId} that match {@code filter} in a single statement,
+     * their comments go with them by ON DELETE CASCADE.
+     *
+     * @return ids of the deleted tasks, newest first
+     */
+    List<Long> deleteAllCreated(long creatorId, TaskFilter filter);
+}
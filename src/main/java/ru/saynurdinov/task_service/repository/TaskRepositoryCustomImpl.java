@@ -0,0 +1,387 @@
+package ru.saynurdinov.task_service.repository;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.saynurdinov.task_service.dto.TaskFilter;
+import ru.saynurdinov.task_service.entity.Comment;
+import ru.saynurdinov.task_service.entity.Task;
+import ru.saynurdinov.task_service.entity.User;
+import ru.saynurdinov.task_service.entity.enums.TaskPriority;
+import ru.saynurdinov.task_service.entity.enums.TaskStatus;
+import ru.saynurdinov.task_service.projection.CollectionStamp;
+import ru.saynurdinov.task_service.projection.RankedTaskView;
+import ru.saynurdinov.task_service.projection.TaskView;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * List queries select {@link TaskView} rows with creator and executor joined in the same select,
+ * so a page is one statement and nothing ends up in the persistence context.
+ */
+public class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    /**
+     * The update and the read of the changed row with both users is one round-trip.
+     * Ownership and the expected version are part of the WHERE clause,
+     * so a miss means "not found, not yours or modified".
+     */
+    private static final String UPDATE_STATUS_SQL = """
+            WITH updated AS (
+                UPDATE tasks SET status = :status, version = version + 1, updated_at = :updatedAt
+                WHERE task_id = :id AND executor_id = :executorId %s
+                RETURNING task_id, title, description, priority, status, comment_count, creator_id, executor_id, version
+            )
+            SELECT t.task_id, t.title, t.description, t.priority, t.status, t.comment_count,
+                   t.creator_id, c.username AS creator_username, c.email AS creator_email,
+                   t.executor_id, e.username AS executor_username, e.email AS executor_email, t.version
+            FROM updated t
+            JOIN users c ON c.user_id = t.creator_id
+            JOIN users e ON e.user_id = t.executor_id
+            """;
+
+    private static final String ADD_TO_COMMENT_COUNT_SQL = """
+            UPDATE tasks SET comment_count = comment_count + :delta, updated_at = :updatedAt
+            WHERE task_id = :id
+            RETURNING task_id
+            """;
+
+    private static final String TOUCH_SQL = """
+            UPDATE tasks SET updated_at = :updatedAt
+            WHERE task_id = :id
+            RETURNING task_id
+            """;
+
+    /**
+     * The ETag of a row as {@link ru.saynurdinov.task_service.util.ETagUtils#of} builds it, compared as a whole.
+     */
+    private static final String ETAG_CONDITION =
+            "AND ('\"' || version || '-' || floor(extract(epoch FROM updated_at) * 1000)::bigint || '\"') IN (:eTags)";
+
+    private static final String UPDATE_STATUS_ALL_SQL = """
+            UPDATE tasks SET status = :status, version = version + 1, updated_at = :updatedAt
+            WHERE task_id IN (:ids) AND executor_id = :executorId
+            RETURNING task_id
+            """;
+
+    private static final String REASSIGN_ALL_SQL = """
+            WITH updated AS (
+                UPDATE tasks SET executor_id = :targetExecutorId, version = version + 1, updated_at = :updatedAt
+                WHERE creator_id = :userId %s
+                RETURNING task_id
+            )
+            SELECT task_id FROM updated ORDER BY task_id DESC
+            """;
+
+    private static final String DELETE_ALL_CREATED_SQL = """
+            WITH deleted AS (
+                DELETE FROM tasks
+                WHERE creator_id = :userId %s
+                RETURNING task_id
+            )
+            SELECT task_id FROM deleted ORDER BY task_id DESC
+            """;
+
+    /**
+     * The GIN index on the generated search_vector finds the matches, ranking only touches those rows.
+     * The owner condition is an OR, so it's applied to the matches rather than driving the plan.
+     */
+    private static final String SEARCH_SQL = """
+            SELECT t.task_id, t.title, t.description, t.priority, t.status, t.comment_count,
+                   t.creator_id, c.username AS creator_username, c.email AS creator_email,
+                   t.executor_id, e.username AS executor_username, e.email AS executor_email,
+                   t.version, t.updated_at, h.rank
+            FROM websearch_to_tsquery('simple', :query) AS q(query)
+            JOIN tasks t ON t.search_vector @@ q.query
+            CROSS JOIN LATERAL (SELECT ts_rank_cd(t.search_vector, q.query) AS rank) h
+            JOIN users c ON c.user_id = t.creator_id
+            JOIN users e ON e.user_id = t.executor_id
+            WHERE (t.creator_id = :userId OR t.executor_id = :userId) %s
+            ORDER BY h.rank DESC, t.task_id DESC
+            LIMIT :limit
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TaskView> findAllBefore(Specification<Task> specification, long beforeId, int limit) {
+        return createQuery(specification.and(TaskSpecifications.idBefore(beforeId)))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<TaskView> findAll(Specification<Task> specification, int offset, int limit) {
+        return createQuery(specification)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Rows are projections, so the persistence context stays empty however many of them are read.
+     */
+    @Override
+    public Stream<TaskView> streamAll(Specification<Task> specification, int fetchSize) {
+        return createQuery(specification)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public Optional<TaskView> updateStatus(long id, long executorId, TaskStatus status, Set<String> expectedETags) {
+        Instant updatedAt = Instant.now();
+        Query query = entityManager.createNativeQuery(
+                        UPDATE_STATUS_SQL.formatted(expectedETags == null ? "" : ETAG_CONDITION), Tuple.class)
+                .setParameter("id", id)
+                .setParameter("executorId", executorId)
+                .setParameter("status", status.name())
+                .setParameter("updatedAt", updatedAt);
+        if (expectedETags != null) {
+            query.setParameter("eTags", expectedETags);
+        }
+        List<?> rows = query.getResultList();
+        if (!rows.isEmpty()) {
+            evictFromCache(List.of(id));
+        }
+        return rows.stream().map(Tuple.class::cast).map(row -> toView(row, updatedAt)).findFirst();
+    }
+
+    @Override
+    public List<Long> updateStatusAll(Collection<Long> ids, long executorId, TaskStatus status) {
+        List<?> rows = entityManager.createNativeQuery(UPDATE_STATUS_ALL_SQL, Long.class)
+                .setParameter("ids", ids)
+                .setParameter("executorId", executorId)
+                .setParameter("status", status.name())
+                .setParameter("updatedAt", Instant.now())
+                .getResultList();
+        List<Long> updatedIds = rows.stream().map(Long.class::cast).toList();
+        evictFromCache(updatedIds);
+        return updatedIds;
+    }
+
+    @Override
+    public void addToCommentCount(long id, int delta, Instant updatedAt) {
+        List<?> rows = entityManager.createNativeQuery(ADD_TO_COMMENT_COUNT_SQL, Long.class)
+                .setParameter("id", id)
+                .setParameter("delta", delta)
+                .setParameter("updatedAt", updatedAt)
+                .getResultList();
+        List<Long> updatedIds = rows.stream().map(Long.class::cast).toList();
+        evictFromCache(updatedIds);
+    }
+
+    @Override
+    public void touch(long id, Instant updatedAt) {
+        List<?> rows = entityManager.createNativeQuery(TOUCH_SQL, Long.class)
+                .setParameter("id", id)
+                .setParameter("updatedAt", updatedAt)
+                .getResultList();
+        List<Long> updatedIds = rows.stream().map(Long.class::cast).toList();
+        evictFromCache(updatedIds);
+    }
+
+    @Override
+    public void deleteWithComments(Task task) {
+        entityManager.remove(task);
+        evictDeletedFromCache(List.of(task.getId()));
+    }
+
+    @Override
+    public List<Long> reassignAll(long creatorId, TaskFilter filter, long executorId) {
+        Map<String, Object> parameters = new HashMap<>();
+        Query query = entityManager.createNativeQuery(REASSIGN_ALL_SQL.formatted(toSql(filter, parameters)), Long.class)
+                .setParameter("targetExecutorId", executorId)
+                .setParameter("updatedAt", Instant.now())
+                .setParameter("userId", creatorId);
+        parameters.forEach(query::setParameter);
+        List<?> rows = query.getResultList();
+        List<Long> reassignedIds = rows.stream().map(Long.class::cast).toList();
+        evictFromCache(reassignedIds);
+        return reassignedIds;
+    }
+
+    @Override
+    public List<Long> deleteAllCreated(long creatorId, TaskFilter filter) {
+        Map<String, Object> parameters = new HashMap<>();
+        Query query = entityManager.createNativeQuery(DELETE_ALL_CREATED_SQL.formatted(toSql(filter, parameters)), Long.class)
+                .setParameter("userId", creatorId);
+        parameters.forEach(query::setParameter);
+        List<?> rows = query.getResultList();
+        List<Long> deletedIds = rows.stream().map(Long.class::cast).toList();
+        evictDeletedFromCache(deletedIds);
+        return deletedIds;
+    }
+
+    @Override
+    public List<RankedTaskView> search(long userId, String query, Float afterRank, long afterId, int limit) {
+        Query nativeQuery = entityManager.createNativeQuery(
+                        SEARCH_SQL.formatted(afterRank == null ? "" : "AND (h.rank, t.task_id) < (CAST(:afterRank AS real), :afterId)"),
+                        Tuple.class)
+                .setParameter("query", query)
+                .setParameter("userId", userId)
+                .setParameter("limit", limit);
+        if (afterRank != null) {
+            nativeQuery.setParameter("afterRank", afterRank)
+                    .setParameter("afterId", afterId);
+        }
+        List<?> rows = nativeQuery.getResultList();
+        return rows.stream()
+                .map(Tuple.class::cast)
+                .map(row -> new RankedTaskView(
+                        toView(row, row.get("updated_at", Instant.class)),
+                        row.get("rank", Number.class).floatValue()))
+                .toList();
+    }
+
+    private static TaskView toView(Tuple row, Instant updatedAt) {
+        return new TaskView(
+                row.get("task_id", Number.class).longValue(),
+                row.get("title", String.class),
+                row.get("description", String.class),
+                TaskPriority.valueOf(row.get("priority", String.class)),
+                TaskStatus.valueOf(row.get("status", String.class)),
+                row.get("comment_count", Number.class).intValue(),
+                row.get("creator_id", Number.class).longValue(),
+                row.get("creator_username", String.class),
+                row.get("creator_email", String.class),
+                row.get("executor_id", Number.class).longValue(),
+                row.get("executor_username", String.class),
+                row.get("executor_email", String.class),
+                row.get("version", Number.class).longValue(),
+                updatedAt);
+    }
+
+    @Override
+    public CollectionStamp findStamp(Specification<Task> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CollectionStamp> query = cb.createQuery(CollectionStamp.class);
+        Root<Task> root = query.from(Task.class);
+        query.select(cb.construct(CollectionStamp.class, cb.count(root), cb.greatest(root.<Instant>get("updatedAt"))))
+                .where(specification.toPredicate(root, query, cb));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public List<Long> findIds(Specification<Task> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Task> root = query.from(Task.class);
+        query.select(root.get("id"))
+                .where(specification.toPredicate(root, query, cb))
+                .orderBy(cb.desc(root.get("id")));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    /**
+     * SQL counterpart of {@link TaskSpecifications#matches} for statements criteria can't express,
+     * such as UPDATE ... RETURNING. Returns a condition per filter that is set, starting with AND, and collects
+     * the values to bind.
+     */
+    private static String toSql(TaskFilter filter, Map<String, Object> parameters) {
+        if (filter == null) {
+            return "";
+        }
+        StringBuilder sql = new StringBuilder();
+        if (filter.getStatus() != null) {
+            sql.append(" AND status = :status");
+            parameters.put("status", filter.getStatus().name());
+        }
+        if (filter.getPriority() != null) {
+            sql.append(" AND priority = :priority");
+            parameters.put("priority", filter.getPriority().name());
+        }
+        if (filter.getDeadlineFrom() != null) {
+            sql.append(" AND deadline >= :deadlineFrom");
+            parameters.put("deadlineFrom", filter.getDeadlineFrom());
+        }
+        if (filter.getDeadlineTo() != null) {
+            sql.append(" AND deadline < :deadlineTo");
+            parameters.put("deadlineTo", filter.getDeadlineTo());
+        }
+        if (filter.getCreatorId() != null) {
+            sql.append(" AND creator_id = :creatorId");
+            parameters.put("creatorId", filter.getCreatorId());
+        }
+        if (filter.getExecutorId() != null) {
+            sql.append(" AND executor_id = :executorId");
+            parameters.put("executorId", filter.getExecutorId());
+        }
+        if (filter.getText() != null && !filter.getText().isBlank()) {
+            sql.append(" AND (lower(title) LIKE :pattern OR lower(description) LIKE :pattern)");
+            parameters.put("pattern", TaskSpecifications.likePattern(filter.getText()));
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Hibernate evicts cached tasks after JPQL bulk updates, but a native UPDATE ... RETURNING runs as a select
+     * and goes unnoticed. The entries are evicted at once for the rest of the transaction, and again after it
+     * completes in case a concurrent transaction has cached the old rows in between.
+     */
+    private void evictFromCache(Collection<Long> ids) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        evict(() -> ids.forEach(id -> cache.evict(Task.class, id)));
+    }
+
+    /**
+     * Comments of deleted tasks are removed by ON DELETE CASCADE, which the cache doesn't see either.
+     * Their ids aren't known without reading them first, so the whole comment region is evicted.
+     */
+    private void evictDeletedFromCache(Collection<Long> ids) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        evict(() -> {
+            ids.forEach(id -> cache.evict(Task.class, id));
+            cache.evict(Comment.class);
+        });
+    }
+
+    private static void evict(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private TypedQuery<TaskView> createQuery(Specification<Task> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TaskView> query = cb.createQuery(TaskView.class);
+        Root<Task> root = query.from(Task.class);
+        Join<Task, User> creator = root.join("creator");
+        Join<Task, User> executor = root.join("executor");
+        query.select(cb.construct(TaskView.class,
+                        root.get("id"), root.get("title"), root.get("description"),
+                        root.get("priority"), root.get("status"), root.get("commentCount"),
+                        creator.get("id"), creator.get("username"), creator.get("email"),
+                        executor.get("id"), executor.get("username"), executor.get("email"),
+                        root.get("version"), root.get("updatedAt")))
+                .where(specification.toPredicate(root, query, cb))
+                .orderBy(cb.desc(root.get("id")));
+        return entityManager.createQuery(query);
+    }
+}
@@ -0,0 +1,91 @@
+package ru.saynurdinov.task_service.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import ru.saynurdinov.task_service.dto.TaskFilter;
+import ru.saynurdinov.task_service.entity.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Task predicates. Only filters that are actually set end up in the query,
+ * so every filter combination is its own SQL statement with its own plan.
+ */
+public final class TaskSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private TaskSpecifications() {
+    }
+
+    public static Specification<Task> createdBy(long userId) {
+        return (root, query, cb) -> cb.equal(root.get("creator").get("id"), userId);
+    }
+
+    public static Specification<Task> assignedTo(long userId) {
+        return (root, query, cb) -> cb.equal(root.get("executor").get("id"), userId);
+    }
+
+    public static Specification<Task> notCreatedBy(long userId) {
+        return (root, query, cb) -> cb.notEqual(root.get("creator").get("id"), userId);
+    }
+
+    public static Specification<Task> idBefore(long id) {
+        return (root, query, cb) -> cb.lessThan(root.get("id"), id);
+    }
+
+    public static Specification<Task> matches(TaskFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = toPredicates(filter, root, cb);
+            return predicates.isEmpty() ? null : cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    private static List<Predicate> toPredicates(TaskFilter filter, Root<Task> root, CriteriaBuilder cb) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter == null) {
+            return predicates;
+        }
+        if (filter.getStatus() != null) {
+            predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+        }
+        if (filter.getPriority() != null) {
+            predicates.add(cb.equal(root.get("priority"), filter.getPriority()));
+        }
+        if (filter.getDeadlineFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("deadline"), filter.getDeadlineFrom()));
+        }
+        if (filter.getDeadlineTo() != null) {
+            predicates.add(cb.lessThan(root.get("deadline"), filter.getDeadlineTo()));
+        }
+        if (filter.getCreatorId() != null) {
+            predicates.add(cb.equal(root.get("creator").get("id"), filter.getCreatorId()));
+        }
+        if (filter.getExecutorId() != null) {
+            predicates.add(cb.equal(root.get("executor").get("id"), filter.getExecutorId()));
+        }
+        if (filter.getText() != null && !filter.getText().isBlank()) {
+            String pattern = likePattern(filter.getText());
+            predicates.add(cb.or(
+                    cb.like(cb.lower(root.get("title")), pattern, LIKE_ESCAPE),
+                    cb.like(cb.lower(root.get("description")), pattern, LIKE_ESCAPE)
+            ));
+        }
+        return predicates;
+    }
+
+    /**
+     * Case-insensitive substring pattern for a text filter, escaped with the backslash Postgres uses by default.
+     */
+    static String likePattern(String text) {
+        return "%" + escapeLike(text.trim().toLowerCase(Locale.ROOT)) + "%";
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,37 @@
+package ru.saynurdinov.task_service.security;
+
+import lombok.Getter;
+import ru.saynurdinov.task_service.entity.User;
+
+/**
+ * Immutable snapshot of a user kept in {@link UserCache}.
+ * A fresh {@code UserDetails} is built from it on every lookup because Spring Security erases the credentials
+ * of the principal it authenticated.
+ */
+@Getter
+public class CachedUser {
+
+    private final long id;
+    private final String username;
+    private final String email;
+    private final String password;
+    private final int tokenVersion;
+
+    public CachedUser(User user) {
+        this.id = user.getId();
+        this.username = user.getUsername();
+        this.email = user.getEmail();
+        this.password = user.getPassword();
+        this.tokenVersion = user.getTokenVersion();
+    }
+
+    public User toUser() {
+        return User.builder()
+                .id(id)
+                .username(username)
+                .email(email)
+                .password(password)
+                .tokenVersion(tokenVersion)
+                .build();
+    }
+}
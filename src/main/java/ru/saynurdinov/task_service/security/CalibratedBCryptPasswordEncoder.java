@@ -0,0 +1,71 @@
+package ru.saynurdinov.task_service.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder whose cost is chosen at startup from the measured hashing latency of the current machine.
+ * It asks for a rehash only when the stored cost is lower than the configured one, so nodes that calibrated
+ * to different costs converge on the highest of them instead of rehashing each other's hashes on every login.
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(CalibratedBCryptPasswordEncoder.class);
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[abyx]?\\$(\\d\\d)\\$");
+    private static final int MIN_BCRYPT_STRENGTH = 4;
+    private static final int SAMPLES = 3;
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * Returns the largest cost in {@code [minStrength, maxStrength]} whose hashing takes no longer than
+     * {@code targetLatency}, or {@code minStrength} if even that one is slower.
+     */
+    public static int calibrate(Duration targetLatency, int minStrength, int maxStrength) {
+        new BCryptPasswordEncoder(MIN_BCRYPT_STRENGTH).encode(SAMPLE_PASSWORD);
+        int strength = minStrength;
+        for (int candidate = minStrength; candidate <= maxStrength; candidate++) {
+            Duration latency = measure(candidate);
+            if (latency.compareTo(targetLatency) > 0) {
+                break;
+            }
+            strength = candidate;
+        }
+        log.info("BCrypt strength calibrated to {} for a target latency of {} ms", strength, targetLatency.toMillis());
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.find()) {
+            return false;
+        }
+        return Integer.parseInt(matcher.group(1)) < strength;
+    }
+
+    private static Duration measure(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return Duration.ofNanos(best);
+    }
+}
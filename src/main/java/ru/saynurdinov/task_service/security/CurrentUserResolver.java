@@ -0,0 +1,50 @@
+package ru.saynurdinov.task_service.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+import ru.saynurdinov.task_service.entity.User;
+import ru.saynurdinov.task_service.exception.ResourceNotFoundException;
+import ru.saynurdinov.task_service.repository.UserRepository;
+
+/**
+ * Resolves the id of the authenticated user once per request.
+ * Services use {@link #getReference()} to link entities to the user without loading it.
+ */
+@Component
+@RequestScope
+public class CurrentUserResolver {
+
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private Long userId;
+
+    @Autowired
+    public CurrentUserResolver(UserRepository userRepository, UserCache userCache) {
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+    }
+
+    public long getUserId() {
+        if (userId == null) {
+            userId = resolveUserId();
+        }
+        return userId;
+    }
+
+    public User getReference() {
+        return userRepository.getReferenceById(getUserId());
+    }
+
+    private long resolveUserId() {
+        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (userDetails instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser.getId();
+        }
+        return userCache.get(userDetails.getUsername(), userRepository::findByEmail)
+                .map(CachedUser::getId)
+                .orElseThrow(() -> new ResourceNotFoundException("user", "email", userDetails.getUsername()));
+    }
+}
@@ -0,0 +1,60 @@
+package ru.saynurdinov.task_service.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.saynurdinov.task_service.entity.RevokedToken;
+import ru.saynurdinov.task_service.repository.RevokedTokenRepository;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of revoked access token ids, backed by the {@code revoked_tokens} table.
+ * Access tokens are short-lived, so the set only ever holds the revocations of the last token lifetime
+ * and lookups stay O(1) without a query. Revocations made on other nodes are picked up on every sync.
+ */
+@Component
+public class TokenRevocationList {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository) {
+        this.revokedTokenRepository = revokedTokenRepository;
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && revoked.containsKey(tokenId);
+    }
+
+    /**
+     * The token is added to the in-memory set once the transaction commits,
+     * a rolled back revocation never rejects a token that is still valid in the table.
+     */
+    @Transactional
+    public void revoke(String tokenId, Instant expiresAt) {
+        revokedTokenRepository.save(new RevokedToken(tokenId, expiresAt));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                revoked.put(tokenId, expiresAt);
+            }
+        });
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval}")
+    public void sync() {
+        Instant now = Instant.now();
+        revokedTokenRepository.deleteExpired(now);
+        revokedTokenRepository.findByExpiresAtAfter(now)
+                .forEach(token -> revoked.put(token.getTokenId(), token.getExpiresAt()));
+        revoked.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+    }
+}
@@ -0,0 +1,58 @@
+package ru.saynurdinov.task_service.security;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.saynurdinov.task_service.repository.UserRepository;
+
+import java.time.Duration;
+
+/**
+ * Cached per-user token version. A token is accepted only while its version claim equals the current one,
+ * so {@link #incrementVersion(long)} revokes all earlier tokens.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private static final int UNKNOWN_USER = -1;
+
+    private final UserRepository userRepository;
+    private final LoadingCache<Long, Integer> versions;
+
+    public TokenVersionRegistry(UserRepository userRepository,
+                                @Value("${jwt.token-version-cache.max-size}") long maxSize,
+                                @Value("${jwt.token-version-cache.expire-after-write}") Duration expireAfterWrite) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build(userId -> userRepository.findTokenVersionById(userId).orElse(UNKNOWN_USER));
+    }
+
+    public int getCurrentVersion(long userId) {
+        return versions.get(userId);
+    }
+
+    public void invalidate(long userId) {
+        versions.invalidate(userId);
+    }
+
+    /**
+     * Revokes every access token issued to the user so far. Joins the caller's transaction,
+     * the cached version is dropped once it commits so a rollback leaves the old tokens valid.
+     */
+    @Transactional
+    public void incrementVersion(long userId) {
+        userRepository.incrementTokenVersion(userId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(userId);
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package ru.saynurdinov.task_service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.saynurdinov.task_service.entity.User;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of users keyed by email, used for authentication and id lookups.
+ * Hit and miss counts are published under the {@code cache.*} metrics with {@code cache=users}.
+ */
+@Component
+public class UserCache {
+
+    private static final String CACHE_NAME = "users";
+
+    private final Cache<String, CachedUser> users;
+
+    public UserCache(MeterRegistry meterRegistry,
+                     @Value("${users.cache.max-size}") long maxSize,
+                     @Value("${users.cache.expire-after-write}") Duration expireAfterWrite) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, CACHE_NAME);
+    }
+
+    public Optional<CachedUser> get(String email, Function<String, Optional<User>> loader) {
+        return Optional.ofNullable(users.get(email, key -> loader.apply(key).map(CachedUser::new).orElse(null)));
+    }
+
+    /**
+     * Evicts the user once the current transaction commits, or immediately if there is no transaction.
+     * Every mutation of a user must call this so that a rolled back change never evicts a valid entry
+     * and a committed one is never served stale.
+     */
+    public void evictAfterCommit(String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    users.invalidate(email);
+                }
+            });
+        } else {
+            users.invalidate(email);
+        }
+    }
+}
@@ -4,13 +4,16 @@ import ru.saynurdinov.task_service.dto.CommentDTO;
 import ru.saynurdinov.task_service.dto.CreateCommentDTO;
 import ru.saynurdinov.task_service.dto.ResourceResponseDTO;
 import ru.saynurdinov.task_service.dto.UpdateCommentDTO;
+import ru.saynurdinov.task_service.projection.CollectionStamp;
 
 import java.util.List;
+import java.util.Set;
 
 public interface CommentService {
 
     ResourceResponseDTO<List<CommentDTO>> getAllByTaskId(long taskId, int page, int size);
+    CollectionStamp getStampOfAllByTaskId(long taskId);
     ResourceResponseDTO<CommentDTO> create(long taskId, CreateCommentDTO createCommentDTO);
-    ResourceResponseDTO<CommentDTO> update(long taskId, long commentId, UpdateCommentDTO updateCommentDTO);
-    ResourceResponseDTO<CommentDTO> delete(long taskId, long commentId);
+    ResourceResponseDTO<CommentDTO> update(long taskId, long commentId, UpdateCommentDTO updateCommentDTO, Set<String> expectedETags);
+    ResourceResponseDTO<CommentDTO> delete(long taskId, long commentId, Set<String> expectedETags);
 }
@@ -3,8 +3,6 @@ package ru.saynurdinov.task_service.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.saynurdinov.task_service.dto.CommentDTO;
@@ -12,66 +10,71 @@ import ru.saynurdinov.task_service.dto.CreateCommentDTO;
 import ru.saynurdinov.task_service.dto.ResourceResponseDTO;
 import ru.saynurdinov.task_service.dto.UpdateCommentDTO;
 import ru.saynurdinov.task_service.entity.Comment;
-import ru.saynurdinov.task_service.entity.Task;
-import ru.saynurdinov.task_service.entity.User;
+import ru.saynurdinov.task_service.exception.PreconditionFailedException;
 import ru.saynurdinov.task_service.exception.ResourceNotFoundException;
 import ru.saynurdinov.task_service.mapper.CommentMapper;
+import ru.saynurdinov.task_service.projection.CollectionStamp;
 import ru.saynurdinov.task_service.repository.CommentRepository;
 import ru.saynurdinov.task_service.repository.TaskRepository;
-import ru.saynurdinov.task_service.repository.UserRepository;
+import ru.saynurdinov.task_service.security.CurrentUserResolver;
+import ru.saynurdinov.task_service.util.ETagUtils;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class CommentServiceImpl implements CommentService {
 
     private final CommentRepository commentRepository;
-    private final UserRepository userRepository;
     private final TaskRepository taskRepository;
     private final CommentMapper commentMapper;
+    private final CurrentUserResolver currentUser;
 
 
     @Autowired
-    public CommentServiceImpl(CommentRepository commentRepository, UserRepository userRepository, TaskRepository taskRepository, CommentMapper commentMapper) {
+    public CommentServiceImpl(CommentRepository commentRepository, TaskRepository taskRepository, CommentMapper commentMapper, CurrentUserResolver currentUser) {
         this.commentRepository = commentRepository;
-        this.userRepository = userRepository;
         this.taskRepository = taskRepository;
         this.commentMapper = commentMapper;
+        this.currentUser = currentUser;
     }
 
     @Transactional(readOnly = true)
     @Override
     public ResourceResponseDTO<List<CommentDTO>> getAllByTaskId(long taskId, int page, int size) {
-        Optional<Task> taskOptional = taskRepository.findById(taskId);
-        if (taskOptional.isPresent()) {
-            Task task = taskOptional.get();
+        if (taskRepository.existsById(taskId)) {
             List<Comment> comments = commentRepository.findByTaskId(taskId, PageRequest.of(page, size)).getContent();
             List<CommentDTO> commentDTOList = comments.stream().map(comment -> {
                 CommentDTO commentDTO = commentMapper.toDTO(comment);
-                commentDTO.setTaskId(task.getId());
+                commentDTO.setTaskId(taskId);
                 return commentDTO;
             }).toList();
-            return new ResourceResponseDTO<>(String.format("Request for a list of comments of task with id = %d", task.getId()), commentDTOList);
+            return new ResourceResponseDTO<>(String.format("Request for a list of comments of task with id = %d", taskId), commentDTOList);
         } else {
             throw new ResourceNotFoundException("task", "id", String.valueOf(taskId));
         }
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public CollectionStamp getStampOfAllByTaskId(long taskId) {
+        return commentRepository.findStampByTaskId(taskId);
+    }
+
     @Transactional
     @Override
     public ResourceResponseDTO<CommentDTO> create(long taskId, CreateCommentDTO createCommentDTO) {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        Optional<Task> taskOptional = taskRepository.findById(taskId);
-        if (taskOptional.isPresent()) {
-            Task task = taskOptional.get();
+        if (taskRepository.existsById(taskId)) {
             Comment comment = Comment.builder()
                     .text(createCommentDTO.getText())
-                    .owner(userRepository.findByEmail(userDetails.getUsername()).get())
-                    .task(task)
+                    .owner(currentUser.getReference())
+                    .task(taskRepository.getReferenceById(taskId))
                     .build();
-            CommentDTO commentDTO = commentMapper.toDTO(commentRepository.save(comment));
-            commentDTO.setTaskId(task.getId());
+            CommentDTO commentDTO = commentMapper.toDTO(commentRepository.saveAndFlush(comment));
+            taskRepository.addToCommentCount(taskId, 1, Instant.now());
+            commentDTO.setTaskId(taskId);
             return new ResourceResponseDTO<>("Comment was successfully created", commentDTO);
 
         } else {
@@ -81,19 +84,17 @@ public class CommentServiceImpl implements CommentService {
 
     @Transactional
     @Override
-    public ResourceResponseDTO<CommentDTO> update(long taskId, long commentId, UpdateCommentDTO updateCommentDTO) {
-        Optional<Task> taskOptional = taskRepository.findById(taskId);
-        if (taskOptional.isPresent()) {
-            Task task = taskOptional.get();
+    public ResourceResponseDTO<CommentDTO> update(long taskId, long commentId, UpdateCommentDTO updateCommentDTO, Set<String> expectedETags) {
+        if (taskRepository.existsById(taskId)) {
             Optional<Comment> commentOptional = commentRepository.findById(commentId);
             if (commentOptional.isPresent()) {
                 Comment comment = commentOptional.get();
-                UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-                User authenticated = userRepository.findByEmail(userDetails.getUsername()).get();
-                if (comment.getOwner().equals(authenticated)) {
+                if (comment.getOwner().getId() == currentUser.getUserId()) {
+                    checkVersion(comment, expectedETags);
                     comment.setText(updateCommentDTO.getText());
-                    CommentDTO commentDTO = commentMapper.toDTO(commentRepository.save(comment));
-                    commentDTO.setTaskId(task.getId());
+                    CommentDTO commentDTO = commentMapper.toDTO(commentRepository.saveAndFlush(comment));
+                    taskRepository.touch(comment.getTask().getId(), comment.getUpdatedAt());
+                    commentDTO.setTaskId(taskId);
                     return new ResourceResponseDTO<>("Comment was successfully updated", commentDTO);
 
                 } else {
@@ -110,18 +111,17 @@ public class CommentServiceImpl implements CommentService {
 
     @Transactional
     @Override
-    public ResourceResponseDTO<CommentDTO>  delete(long taskId, long commentId) {
-        Optional<Task> taskOptional = taskRepository.findById(taskId);
-        if (taskOptional.isPresent()) {
+    public ResourceResponseDTO<CommentDTO>  delete(long taskId, long commentId, Set<String> expectedETags) {
+        if (taskRepository.existsById(taskId)) {
             Optional<Comment> commentOptional = commentRepository.findById(commentId);
             if (commentOptional.isPresent()) {
                 Comment comment = commentOptional.get();
-                UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-                User authenticated = userRepository.findByEmail(userDetails.getUsername()).get();
-                if (comment.getOwner().equals(authenticated)) {
+                if (comment.getOwner().getId() == currentUser.getUserId()) {
+                    checkVersion(comment, expectedETags);
                     commentRepository.delete(comment);
+                    taskRepository.addToCommentCount(comment.getTask().getId(), -1, Instant.now());
                     CommentDTO commentDTO = commentMapper.toDTO(comment);
-                    commentDTO.setTaskId(taskOptional.get().getId());
+                    commentDTO.setTaskId(taskId);
                     return new ResourceResponseDTO<>("Comment was successfully deleted", commentDTO);
                 } else {
                     throw new AccessDeniedException("No access to this comment");
@@ -135,4 +135,9 @@ public class CommentServiceImpl implements CommentService {
         }
     }
 
+    private static void checkVersion(Comment comment, Set<String> expectedETags) {
+        if (!ETagUtils.matches(expectedETags, comment.getVersion(), comment.getUpdatedAt())) {
+            throw new PreconditionFailedException("comment", comment.getId());
+        }
+    }
 }
@@ -0,0 +1,10 @@
+package ru.saynurdinov.task_service.service;
+
+import ru.saynurdinov.task_service.entity.User;
+
+public interface RefreshTokenService {
+
+    String create(User user);
+    User rotate(String refreshToken);
+    void revoke(String refreshToken);
+}
@@ -0,0 +1,114 @@
+package ru.saynurdinov.task_service.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.saynurdinov.task_service.entity.RefreshToken;
+import ru.saynurdinov.task_service.entity.User;
+import ru.saynurdinov.task_service.repository.RefreshTokenRepository;
+import ru.saynurdinov.task_service.repository.UserRepository;
+import ru.saynurdinov.task_service.security.TokenVersionRegistry;
+import ru.saynurdinov.task_service.security.UserCache;
+import ru.saynurdinov.task_service.util.HashUtils;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final UserCache userCache;
+    private final Duration expiration;
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository,
+                                   TokenVersionRegistry tokenVersionRegistry, UserCache userCache,
+                                   @Value("${jwt.refresh-expiration}") Duration expiration) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.userCache = userCache;
+        this.expiration = expiration;
+    }
+
+    @Transactional
+    @Override
+    public String create(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(HashUtils.sha256(token))
+                .user(userRepository.getReferenceById(user.getId()))
+                .expiresAt(Instant.now().plus(expiration))
+                .build());
+        return token;
+    }
+
+    /**
+     * Revokes the presented token and returns its owner, who gets a new token pair.
+     * Presenting an already revoked token means it was stolen or replayed, so every refresh and access token
+     * of the user is revoked.
+     */
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    @Override
+    public User rotate(String refreshToken) {
+        Optional<RefreshToken> tokenOptional = refreshTokenRepository.findByTokenHash(HashUtils.sha256(refreshToken));
+        if (tokenOptional.isPresent()) {
+            RefreshToken token = tokenOptional.get();
+            if (token.isRevoked()) {
+                throw reused(token.getUser());
+            }
+            if (token.getExpiresAt().isBefore(Instant.now())) {
+                throw new BadCredentialsException("Refresh token has expired");
+            }
+            // the read above takes no lock, a concurrent refresh with the same token may have claimed it since
+            if (refreshTokenRepository.claim(token.getId()) == 0) {
+                throw reused(token.getUser());
+            }
+            return token.getUser();
+        } else {
+            throw new BadCredentialsException("Refresh token is invalid");
+        }
+    }
+
+    @Transactional
+    @Override
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findByTokenHash(HashUtils.sha256(refreshToken))
+                .ifPresent(token -> token.setRevoked(true));
+    }
+
+    private BadCredentialsException reused(User user) {
+        revokeAll(user);
+        return new BadCredentialsException("Refresh token was already used");
+    }
+
+    /**
+     * Access tokens carry the token version, bumping it makes them all fail in JwtFilter.
+     * The cached user is evicted too, so tokens issued after this carry the new version.
+     */
+    private void revokeAll(User user) {
+        refreshTokenRepository.revokeAllByUserId(user.getId());
+        tokenVersionRegistry.incrementVersion(user.getId());
+        userCache.evictAfterCommit(user.getEmail());
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${jwt.revocation.cleanup-interval}")
+    public void deleteExpired() {
+        refreshTokenRepository.deleteExpired(Instant.now());
+    }
+}
@@ -0,0 +1,11 @@
+package ru.saynurdinov.task_service.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.saynurdinov.task_service.dto.DataFormat;
+
+import java.io.InputStream;
+
+public interface TaskImportService {
+
+    StreamingResponseBody importTasks(InputStream inputStream, DataFormat format);
+}
@@ -0,0 +1,293 @@
+package ru.saynurdinov.task_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.saynurdinov.task_service.dto.BatchItemResultDTO;
+import ru.saynurdinov.task_service.dto.CreateCommentDTO;
+import ru.saynurdinov.task_service.dto.DataFormat;
+import ru.saynurdinov.task_service.dto.ImportProgressDTO;
+import ru.saynurdinov.task_service.dto.ImportTaskDTO;
+import ru.saynurdinov.task_service.entity.Comment;
+import ru.saynurdinov.task_service.entity.Task;
+import ru.saynurdinov.task_service.entity.User;
+import ru.saynurdinov.task_service.entity.enums.TaskStatus;
+import ru.saynurdinov.task_service.exception.ResourceNotFoundException;
+import ru.saynurdinov.task_service.repository.CommentRepository;
+import ru.saynurdinov.task_service.repository.TaskRepository;
+import ru.saynurdinov.task_service.repository.UserRepository;
+import ru.saynurdinov.task_service.security.CurrentUserResolver;
+import ru.saynurdinov.task_service.util.CsvUtils;
+import ru.saynurdinov.task_service.util.ValidationUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the upload row by row and writes every {@value #BATCH_SIZE} rows in a transaction of their own,
+ * so neither the file nor the imported entities are held in memory. A batch is closed earlier once its tasks
+ * and comments reach {@value #BATCH_ENTITIES} entities, since they all stay in the persistence context until it's written.
+ * A progress line is written after each batch, a batch reported there is committed,
+ * or reported row by row as failed if the database rejected it.
+ */
+@Service
+public class TaskImportServiceImpl implements TaskImportService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int BATCH_ENTITIES = 5000;
+
+    private final TaskRepository taskRepository;
+    private final CommentRepository commentRepository;
+    private final UserRepository userRepository;
+    private final CurrentUserResolver currentUser;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate batchTransaction;
+
+    @Autowired
+    public TaskImportServiceImpl(TaskRepository taskRepository, CommentRepository commentRepository, UserRepository userRepository, CurrentUserResolver currentUser,
+                                 Validator validator, ObjectMapper objectMapper, EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.taskRepository = taskRepository;
+        this.commentRepository = commentRepository;
+        this.userRepository = userRepository;
+        this.currentUser = currentUser;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * The importing user is resolved on the request thread, the body is processed after the controller has returned.
+     */
+    @Override
+    public StreamingResponseBody importTasks(InputStream inputStream, DataFormat format) {
+        long userId = currentUser.getUserId();
+        return outputStream -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            RowReader rows = format == DataFormat.CSV ? new CsvRowReader(reader) : new NdjsonRowReader(reader);
+            ImportProgressDTO progress = new ImportProgressDTO();
+            List<Row> batch = new ArrayList<>(BATCH_SIZE);
+            int rowsInBatch = 0;
+            int entitiesInBatch = 0;
+            for (Row row = rows.next(); row != null; row = rows.next()) {
+                progress.setRowsRead(progress.getRowsRead() + 1);
+                String error = row.error() != null ? row.error() : ValidationUtils.describe(validator.validate(row.task()));
+                if (error != null) {
+                    reject(progress, row.number(), HttpStatus.BAD_REQUEST, error);
+                } else {
+                    batch.add(row);
+                    entitiesInBatch += 1 + (row.task().getComments() == null ? 0 : row.task().getComments().size());
+                }
+                if (++rowsInBatch == BATCH_SIZE || entitiesInBatch >= BATCH_ENTITIES) {
+                    write(userId, batch, progress);
+                    report(progress, writer);
+                    batch.clear();
+                    rowsInBatch = 0;
+                    entitiesInBatch = 0;
+                }
+            }
+            write(userId, batch, progress);
+            progress.setDone(true);
+            report(progress, writer);
+        };
+    }
+
+    /**
+     * Rows whose executor doesn't exist are rejected only once the batch is committed. If the batch fails,
+     * it is rolled back as a whole and each of its rows is reported as failed, so the import goes on with the next one.
+     */
+    private void write(long userId, List<Row> rows, ImportProgressDTO progress) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<Row> withoutExecutor = new ArrayList<>();
+        int[] written;
+        try {
+            written = batchTransaction.execute(status -> writeBatch(userId, rows, withoutExecutor));
+        } catch (RuntimeException e) {
+            String message = "Batch was rolled back: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            rows.forEach(row -> reject(progress, row.number(), HttpStatus.INTERNAL_SERVER_ERROR, message));
+            return;
+        } finally {
+            // with open-in-view the persistence context outlives the transaction, the batch must not pile up in it
+            entityManager.clear();
+        }
+        for (Row row : withoutExecutor) {
+            String message = new ResourceNotFoundException("user", "id", String.valueOf(row.task().getExecutorId())).getMessage();
+            reject(progress, row.number(), HttpStatus.NOT_FOUND, message);
+        }
+        progress.setTasksImported(progress.getTasksImported() + written[0]);
+        progress.setCommentsImported(progress.getCommentsImported() + written[1]);
+    }
+
+    /**
+     * @return the number of tasks and comments written
+     */
+    private int[] writeBatch(long userId, List<Row> rows, List<Row> withoutExecutor) {
+        // one JDBC batch per table for the whole import batch instead of the default 50 rows
+        entityManager.unwrap(Session.class).setJdbcBatchSize(BATCH_SIZE);
+        Set<Long> executorIds = rows.stream().map(row -> row.task().getExecutorId()).collect(Collectors.toSet());
+        Map<Long, User> executors = userRepository.findAllById(executorIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        User creator = userRepository.getReferenceById(userId);
+        List<Task> tasks = new ArrayList<>(rows.size());
+        List<Comment> comments = new ArrayList<>();
+        for (Row row : rows) {
+            ImportTaskDTO importTaskDTO = row.task();
+            User executor = executors.get(importTaskDTO.getExecutorId());
+            if (executor == null) {
+                withoutExecutor.add(row);
+                continue;
+            }
+            List<CreateCommentDTO> importedComments = importTaskDTO.getComments() == null ? List.of() : importTaskDTO.getComments();
+            Task task = Task.builder()
+                    .title(importTaskDTO.getTitle())
+                    .description(importTaskDTO.getDescription())
+                    .deadline(importTaskDTO.getDeadline())
+                    .priority(importTaskDTO.getTaskPriority())
+                    .status(TaskStatus.TODO)
+                    .executor(executor)
+                    .creator(creator)
+                    .commentCount(importedComments.size())
+                    .build();
+            tasks.add(task);
+            importedComments.forEach(createCommentDTO -> comments.add(Comment.builder()
+                    .text(createCommentDTO.getText())
+                    .owner(creator)
+                    .task(task)
+                    .build()));
+        }
+        taskRepository.saveAll(tasks);
+        commentRepository.saveAll(comments);
+        entityManager.flush();
+        return new int[]{tasks.size(), comments.size()};
+    }
+
+    private static void reject(ImportProgressDTO progress, long rowNumber, HttpStatus status, String message) {
+        progress.setRowsFailed(progress.getRowsFailed() + 1);
+        progress.getErrors().add(new BatchItemResultDTO<>((int) rowNumber, status.value(), message, null));
+    }
+
+    private void report(ImportProgressDTO progress, Writer writer) throws IOException {
+        writer.write(objectMapper.writeValueAsString(progress));
+        writer.write('\n');
+        writer.flush();
+        progress.getErrors().clear();
+    }
+
+    /**
+     * A parsed row, or the reason it couldn't be parsed.
+     * {@code number} is the line of an NDJSON row or the record of a CSV row, counting the header.
+     */
+    private record Row(long number, ImportTaskDTO task, String error) {
+    }
+
+    private interface RowReader {
+
+        /**
+         * @return the next row, {@code null} at the end of input
+         */
+        Row next() throws IOException;
+    }
+
+    private class NdjsonRowReader implements RowReader {
+
+        private final BufferedReader reader;
+        private long lineNumber;
+
+        NdjsonRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+            } while (line != null && line.isBlank());
+            if (line == null) {
+                return null;
+            }
+            try {
+                ImportTaskDTO importTaskDTO = objectMapper.readValue(line, ImportTaskDTO.class);
+                return importTaskDTO == null
+                        ? new Row(lineNumber, null, "Task can't be null")
+                        : new Row(lineNumber, importTaskDTO, null);
+            } catch (JsonProcessingException e) {
+                return new Row(lineNumber, null, e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * The first record is the header, columns are named after the {@link ImportTaskDTO} fields.
+     * Comments can't be imported from CSV.
+     */
+    private class CsvRowReader implements RowReader {
+
+        private final BufferedReader reader;
+        private List<String> header;
+        private long rowNumber;
+
+        CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            if (header == null) {
+                header = CsvUtils.readRow(reader);
+                rowNumber++;
+                if (header == null) {
+                    return null;
+                }
+            }
+            List<String> fields;
+            do {
+                fields = CsvUtils.readRow(reader);
+                rowNumber++;
+            } while (fields != null && fields.size() == 1 && fields.getFirst().isBlank());
+            if (fields == null) {
+                return null;
+            }
+            if (fields.size() != header.size()) {
+                return new Row(rowNumber, null, String.format("Row has %d fields, the header has %d", fields.size(), header.size()));
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                values.put(header.get(i).trim(), fields.get(i).isEmpty() ? null : fields.get(i));
+            }
+            try {
+                return new Row(rowNumber, objectMapper.convertValue(values, ImportTaskDTO.class), null);
+            } catch (IllegalArgumentException e) {
+                return new Row(rowNumber, null, e.getMessage());
+            }
+        }
+    }
+}
@@ -1,24 +1,43 @@
 package ru.saynurdinov.task_service.service;
 
 
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.saynurdinov.task_service.dto.BatchItemResultDTO;
+import ru.saynurdinov.task_service.dto.BulkChangeStatusDTO;
+import ru.saynurdinov.task_service.dto.BulkResultDTO;
 import ru.saynurdinov.task_service.dto.ChangeStatusDTO;
 import ru.saynurdinov.task_service.dto.CreateTaskDTO;
+import ru.saynurdinov.task_service.dto.DataFormat;
+import ru.saynurdinov.task_service.dto.PageResponseDTO;
 import ru.saynurdinov.task_service.dto.ResourceResponseDTO;
 import ru.saynurdinov.task_service.dto.TaskDTO;
+import ru.saynurdinov.task_service.dto.TaskFilter;
 import ru.saynurdinov.task_service.dto.UpdateTaskDTO;
-import ru.saynurdinov.task_service.entity.enums.TaskPriority;
-import ru.saynurdinov.task_service.entity.enums.TaskStatus;
+import ru.saynurdinov.task_service.projection.CollectionStamp;
+import ru.saynurdinov.task_service.projection.ResourceStamp;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public interface TaskService {
 
-    ResourceResponseDTO<List<TaskDTO>> getAllCreatedByAuthorId(Long id, TaskStatus status, TaskPriority priority, int page, int size);
-    ResourceResponseDTO<List<TaskDTO>> getAllAssignedByAssigneeId(Long id, TaskStatus status, TaskPriority priority,  int page, int size);
-    ResourceResponseDTO<List<TaskDTO>> getAllByUserId(Long id, TaskStatus status, TaskPriority priority,  int page, int size);
+    PageResponseDTO<TaskDTO> getAllCreatedByAuthorId(Long id, TaskFilter filter, String cursor, int page, int size);
+    PageResponseDTO<TaskDTO> getAllAssignedByAssigneeId(Long id, TaskFilter filter, String cursor, int page, int size);
+    PageResponseDTO<TaskDTO> getAllByUserId(Long id, TaskFilter filter, String cursor, int page, int size);
+    PageResponseDTO<TaskDTO> search(String query, String cursor, int size);
+    StreamingResponseBody export(Long id, TaskFilter filter, DataFormat format);
     ResourceResponseDTO<TaskDTO> getById(long id);
+    CollectionStamp getStampOfAllCreated(Long id, TaskFilter filter);
+    CollectionStamp getStampOfAllAssigned(Long id, TaskFilter filter);
+    CollectionStamp getStampOfAll(Long id, TaskFilter filter);
+    Optional<ResourceStamp> getStampById(long id);
     ResourceResponseDTO<TaskDTO> create(CreateTaskDTO createTaskDTO);
-    ResourceResponseDTO<TaskDTO> update(long id, UpdateTaskDTO updateTaskDTO);
-    ResourceResponseDTO<TaskDTO> changeStatus(long id, ChangeStatusDTO changeStatusDTO);
-    ResourceResponseDTO<TaskDTO> delete(long id);
+    ResourceResponseDTO<List<BatchItemResultDTO<TaskDTO>>> createBatch(List<CreateTaskDTO> createTaskDTOList);
+    ResourceResponseDTO<TaskDTO> update(long id, UpdateTaskDTO updateTaskDTO, Set<String> expectedETags);
+    ResourceResponseDTO<TaskDTO> changeStatus(long id, ChangeStatusDTO changeStatusDTO, Set<String> expectedETags);
+    ResourceResponseDTO<BulkResultDTO> changeStatusAll(BulkChangeStatusDTO bulkChangeStatusDTO);
+    ResourceResponseDTO<BulkResultDTO> reassignAll(TaskFilter filter, long executorId);
+    ResourceResponseDTO<TaskDTO> delete(long id, Set<String> expectedETags);
+    ResourceResponseDTO<BulkResultDTO> deleteAll(TaskFilter filter, boolean all);
 }
@@ -1,135 +1,223 @@
 package ru.saynurdinov.task_service.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.saynurdinov.task_service.dto.BatchItemResultDTO;
+import ru.saynurdinov.task_service.dto.BulkChangeStatusDTO;
+import ru.saynurdinov.task_service.dto.BulkResultDTO;
 import ru.saynurdinov.task_service.dto.ChangeStatusDTO;
 import ru.saynurdinov.task_service.dto.CreateTaskDTO;
+import ru.saynurdinov.task_service.dto.DataFormat;
+import ru.saynurdinov.task_service.dto.PageResponseDTO;
 import ru.saynurdinov.task_service.dto.ResourceResponseDTO;
 import ru.saynurdinov.task_service.dto.TaskDTO;
+import ru.saynurdinov.task_service.dto.TaskFilter;
 import ru.saynurdinov.task_service.dto.UpdateTaskDTO;
 import ru.saynurdinov.task_service.entity.Task;
 import ru.saynurdinov.task_service.entity.User;
-import ru.saynurdinov.task_service.entity.enums.TaskPriority;
 import ru.saynurdinov.task_service.entity.enums.TaskStatus;
+import ru.saynurdinov.task_service.exception.FilterRequiredException;
+import ru.saynurdinov.task_service.exception.PreconditionFailedException;
 import ru.saynurdinov.task_service.exception.ResourceNotFoundException;
 import ru.saynurdinov.task_service.mapper.TaskMapper;
+import ru.saynurdinov.task_service.projection.CollectionStamp;
+import ru.saynurdinov.task_service.projection.CommentPreview;
+import ru.saynurdinov.task_service.projection.RankedTaskView;
+import ru.saynurdinov.task_service.projection.ResourceStamp;
+import ru.saynurdinov.task_service.projection.TaskView;
+import ru.saynurdinov.task_service.repository.CommentRepository;
 import ru.saynurdinov.task_service.repository.TaskRepository;
 import ru.saynurdinov.task_service.repository.UserRepository;
+import ru.saynurdinov.task_service.security.CurrentUserResolver;
+import ru.saynurdinov.task_service.util.CsvUtils;
+import ru.saynurdinov.task_service.util.CursorUtils;
+import ru.saynurdinov.task_service.util.ETagUtils;
+import ru.saynurdinov.task_service.util.ValidationUtils;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static ru.saynurdinov.task_service.repository.TaskSpecifications.assignedTo;
+import static ru.saynurdinov.task_service.repository.TaskSpecifications.createdBy;
+import static ru.saynurdinov.task_service.repository.TaskSpecifications.matches;
+import static ru.saynurdinov.task_service.repository.TaskSpecifications.notCreatedBy;
 
 @Service
 public class TaskServiceImpl implements TaskService{
 
 
+    private static final int COMMENT_PREVIEW_SIZE = 3;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final String CSV_HEADER = CsvUtils.row("id", "title", "description", "priority", "status", "commentCount",
+            "creatorId", "creatorUsername", "creatorEmail", "executorId", "executorUsername", "executorEmail", "version", "updatedAt");
+
     private final TaskRepository taskRepository;
+    private final CommentRepository commentRepository;
     private final UserRepository userRepository;
     private final TaskMapper taskMapper;
+    private final CurrentUserResolver currentUser;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate exportTransaction;
 
     @Autowired
-    public TaskServiceImpl(TaskRepository taskRepository, UserRepository userRepository, TaskMapper taskMapper) {
+    public TaskServiceImpl(TaskRepository taskRepository, CommentRepository commentRepository, UserRepository userRepository, TaskMapper taskMapper, CurrentUserResolver currentUser, Validator validator,
+                           ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
         this.taskRepository = taskRepository;
+        this.commentRepository = commentRepository;
         this.userRepository = userRepository;
         this.taskMapper = taskMapper;
+        this.currentUser = currentUser;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.exportTransaction = new TransactionTemplate(transactionManager);
+        this.exportTransaction.setReadOnly(true);
     }
 
     @Override
-    @Transactional
-    public ResourceResponseDTO<List<TaskDTO>> getAllCreatedByAuthorId(Long id, TaskStatus status, TaskPriority priority,  int page, int size) {
-        Long userId = null;
-        if (id == null) {
-            UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-            User authenticated = userRepository.findByEmail(userDetails.getUsername()).get();
-            userId = authenticated.getId();
-        } else {
-            Optional<User> creatorOptional = userRepository.findById(id);
-            if (creatorOptional.isPresent()) {
-                userId = creatorOptional.get().getId();
-            } else {
-                throw new ResourceNotFoundException("user", "id", String.valueOf(id));
-            }
-        }
-        List<Task> tasks = taskRepository.findByCreatorId(userId, status, priority, PageRequest.of(page, size)).getContent();
-        List<TaskDTO> taskDTOList = tasks.stream().map(taskMapper::toDTO).toList();
-        return new ResourceResponseDTO<>(String.format("Request for a list of tasks created by the user with id = %d", userId), taskDTOList);
+    @Transactional(readOnly = true)
+    public PageResponseDTO<TaskDTO> getAllCreatedByAuthorId(Long id, TaskFilter filter, String cursor, int page, int size) {
+        long userId = resolveUserId(id);
+        String message = String.format("Request for a list of tasks created by the user with id = %d", userId);
+        return findPage(message, createdBy(userId).and(matches(filter)), cursor, page, size);
     }
 
     @Override
-    @Transactional
-    public ResourceResponseDTO<List<TaskDTO>>  getAllAssignedByAssigneeId(Long id, TaskStatus status, TaskPriority priority,  int page, int size) {
-        Long userId = null;
-        if (id == null) {
-            UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-            User authenticated = userRepository.findByEmail(userDetails.getUsername()).get();
-            userId = authenticated.getId();
-        } else {
-            Optional<User> executorOptional = userRepository.findById(id);
-            if (executorOptional.isPresent()) {
-                userId = executorOptional.get().getId();
-            } else {
-                throw new ResourceNotFoundException("user", "id", String.valueOf(id));
-            }
+    @Transactional(readOnly = true)
+    public PageResponseDTO<TaskDTO> getAllAssignedByAssigneeId(Long id, TaskFilter filter, String cursor, int page, int size) {
+        long userId = resolveUserId(id);
+        String message = String.format("Request for a list of tasks assigned to the user with id = %d", userId);
+        return findPage(message, assignedTo(userId).and(matches(filter)), cursor, page, size);
+    }
+
+    /**
+     * Created and assigned tasks are read as two index-ordered keyset queries and merged here,
+     * an OR of both columns can't be served by one index.
+     * Self-assigned tasks only come from the created query.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponseDTO<TaskDTO> getAllByUserId(Long id, TaskFilter filter, String cursor, int page, int size) {
+        long userId = resolveUserId(id);
+        String message = String.format("Request for a list of user tasks with id = %d", userId);
+        if (cursor == null && page > 0) {
+            return findPage(message, createdBy(userId).or(assignedTo(userId)).and(matches(filter)), null, page, size);
         }
-        List<Task> tasks = taskRepository.findByExecutorId(userId, status, priority, PageRequest.of(page, size)).getContent();
-        List<TaskDTO> taskDTOList = tasks.stream().map(taskMapper::toDTO).toList();
-        return new ResourceResponseDTO<>(String.format("Request for a list of tasks assigned to the user with id = %d", userId), taskDTOList);
+        long beforeId = CursorUtils.decode(cursor);
+        List<TaskView> created = taskRepository.findAllBefore(
+                createdBy(userId).and(matches(filter)), beforeId, size + 1);
+        List<TaskView> assigned = taskRepository.findAllBefore(
+                assignedTo(userId).and(notCreatedBy(userId)).and(matches(filter)), beforeId, size + 1);
+        return toPage(message, mergeNewestFirst(created, assigned, size + 1), size);
     }
 
     @Override
-    @Transactional
-    public ResourceResponseDTO<List<TaskDTO>>  getAllByUserId(Long id, TaskStatus status, TaskPriority priority,  int page, int size) {
-        Long userId = null;
-        if (id == null) {
-            UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-            User authenticated = userRepository.findByEmail(userDetails.getUsername()).get();
-            userId = authenticated.getId();
-        } else {
-            Optional<User> userOptional = userRepository.findById(id);
-            if (userOptional.isPresent()) {
-                userId = userOptional.get().getId();
-            } else {
-                throw new ResourceNotFoundException("user", "id", String.valueOf(id));
+    @Transactional(readOnly = true)
+    public PageResponseDTO<TaskDTO> search(String query, String cursor, int size) {
+        long userId = currentUser.getUserId();
+        CursorUtils.RankedPosition after = CursorUtils.decodeRanked(cursor);
+        List<RankedTaskView> hits = after == null
+                ? taskRepository.search(userId, query, null, 0, size + 1)
+                : taskRepository.search(userId, query, after.rank(), after.id(), size + 1);
+        boolean hasNext = hits.size() > size;
+        List<RankedTaskView> content = hasNext ? hits.subList(0, size) : hits;
+        String nextCursor = hasNext ? CursorUtils.encode(content.getLast().rank(), content.getLast().task().id()) : null;
+        String message = String.format("Search for tasks of the user with id = %d", userId);
+        return new PageResponseDTO<>(message, toDTOList(content.stream().map(RankedTaskView::task).toList()), nextCursor);
+    }
+
+    /**
+     * The user is checked here, on the request thread, so an unknown one is still answered with 404.
+     * The body runs after the controller has returned, on another thread,
+     * so it reads the tasks in a read-only transaction of its own.
+     */
+    @Override
+    public StreamingResponseBody export(Long id, TaskFilter filter, DataFormat format) {
+        long userId = resolveUserId(id);
+        Specification<Task> specification = createdBy(userId).or(assignedTo(userId)).and(matches(filter));
+        return outputStream -> exportTransaction.executeWithoutResult(status -> {
+            try (Stream<TaskView> tasks = taskRepository.streamAll(specification, EXPORT_FETCH_SIZE)) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                write(tasks.iterator(), format, writer);
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-        }
-        List<Task> tasks = taskRepository.findAllByUserId(userId, status, priority, PageRequest.of(page, size)).getContent();
-        List<TaskDTO> taskDTOList = tasks.stream().map(taskMapper::toDTO).toList();
-        return new ResourceResponseDTO<>(String.format("Request for a list of user tasks with id = %d", userId), taskDTOList);
+        });
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public ResourceResponseDTO<TaskDTO> getById(long id) {
-        Optional<Task> taskOptional = taskRepository.findById(id);
+        Optional<TaskView> taskOptional = taskRepository.findViewById(id);
         if (taskOptional.isPresent()){
-            TaskDTO taskDTO = taskMapper.toDTO(taskOptional.get());
+            TaskDTO taskDTO = taskMapper.toDTO(taskOptional.get(), commentRepository.findLatestByTaskIds(List.of(id), COMMENT_PREVIEW_SIZE));
             return new ResourceResponseDTO<>(String.format("Request for a task with id = %d", id), taskDTO);
         } else {
             throw new ResourceNotFoundException("task", "id", String.valueOf(id));
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CollectionStamp getStampOfAllCreated(Long id, TaskFilter filter) {
+        long userId = resolveUserId(id);
+        return taskRepository.findStamp(createdBy(userId).and(matches(filter)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CollectionStamp getStampOfAllAssigned(Long id, TaskFilter filter) {
+        long userId = resolveUserId(id);
+        return taskRepository.findStamp(assignedTo(userId).and(matches(filter)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CollectionStamp getStampOfAll(Long id, TaskFilter filter) {
+        long userId = resolveUserId(id);
+        return taskRepository.findStamp(createdBy(userId).or(assignedTo(userId)).and(matches(filter)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ResourceStamp> getStampById(long id) {
+        return taskRepository.findStampById(id);
+    }
+
     @Transactional
     @Override
     public ResourceResponseDTO<TaskDTO> create(CreateTaskDTO createTaskDTO) {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         Optional<User> executorOptional = userRepository.findById(createTaskDTO.getExecutorId());
         if (executorOptional.isPresent()) {
-            Task task = Task.builder()
-                    .title(createTaskDTO.getTitle())
-                    .description(createTaskDTO.getDescription())
-                    .deadline(createTaskDTO.getDeadline())
-                    .priority(createTaskDTO.getTaskPriority())
-                    .status(TaskStatus.TODO)
-                    .executor(executorOptional.get())
-                    .creator(userRepository.findByEmail(userDetails.getUsername()).get())
-                    .build();
-            TaskDTO taskDTO = taskMapper.toDTO(taskRepository.save(task));
+            Task task = newTask(createTaskDTO, executorOptional.get(), currentUser.getReference());
+            TaskDTO taskDTO = taskMapper.toDTO(taskRepository.saveAndFlush(task), List.of());
             return new ResourceResponseDTO<>("Task was successfully created", taskDTO);
         } else {
             throw new ResourceNotFoundException("user", "id", String.valueOf(createTaskDTO.getExecutorId()));
@@ -137,15 +225,57 @@ public class TaskServiceImpl implements TaskService{
 
     }
 
+    /**
+     * Executors of the whole batch are read with one query. Task ids come from the pooled sequence,
+     * so the inserts go out as JDBC batches on flush.
+     * Invalid items and unknown executors are reported per item and don't stop the others.
+     */
     @Transactional
     @Override
-    public ResourceResponseDTO<TaskDTO> update(long id, UpdateTaskDTO updateTaskDTO) {
+    public ResourceResponseDTO<List<BatchItemResultDTO<TaskDTO>>> createBatch(List<CreateTaskDTO> createTaskDTOList) {
+        Set<Long> executorIds = createTaskDTOList.stream()
+                .filter(Objects::nonNull)
+                .map(CreateTaskDTO::getExecutorId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, User> executors = userRepository.findAllById(executorIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        User creator = currentUser.getReference();
+
+        List<BatchItemResultDTO<TaskDTO>> results = new ArrayList<>(createTaskDTOList.size());
+        List<BatchItemResultDTO<TaskDTO>> createdResults = new ArrayList<>();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < createTaskDTOList.size(); i++) {
+            CreateTaskDTO createTaskDTO = createTaskDTOList.get(i);
+            String error = validate(createTaskDTO);
+            if (error != null) {
+                results.add(new BatchItemResultDTO<>(i, HttpStatus.BAD_REQUEST.value(), error, null));
+            } else if (!executors.containsKey(createTaskDTO.getExecutorId())) {
+                String message = new ResourceNotFoundException("user", "id", String.valueOf(createTaskDTO.getExecutorId())).getMessage();
+                results.add(new BatchItemResultDTO<>(i, HttpStatus.NOT_FOUND.value(), message, null));
+            } else {
+                tasks.add(newTask(createTaskDTO, executors.get(createTaskDTO.getExecutorId()), creator));
+                BatchItemResultDTO<TaskDTO> result = new BatchItemResultDTO<>(i, HttpStatus.CREATED.value(), "Task was successfully created", null);
+                results.add(result);
+                createdResults.add(result);
+            }
+        }
+        taskRepository.saveAllAndFlush(tasks);
+        for (int i = 0; i < tasks.size(); i++) {
+            createdResults.get(i).setBody(taskMapper.toDTO(tasks.get(i), List.of()));
+        }
+        String message = String.format("%d of %d tasks were successfully created", tasks.size(), createTaskDTOList.size());
+        return new ResourceResponseDTO<>(message, results);
+    }
+
+    @Transactional
+    @Override
+    public ResourceResponseDTO<TaskDTO> update(long id, UpdateTaskDTO updateTaskDTO, Set<String> expectedETags) {
         Optional<Task> taskOptional = taskRepository.findById(id);
         if (taskOptional.isPresent()) {
             Task task = taskOptional.get();
-            UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-            User authenticated = userRepository.findByEmail(userDetails.getUsername()).get();
-            if (authenticated.getCreatedTasks().contains(task)) {
+            if (task.getCreator().getId() == currentUser.getUserId()) {
+                checkVersion(task, expectedETags);
                 Optional<User> executorOptional = userRepository.findById(updateTaskDTO.getExecutorId());
                 if (executorOptional.isPresent()) {
                     task.setTitle(updateTaskDTO.getTitle());
@@ -154,7 +284,7 @@ public class TaskServiceImpl implements TaskService{
                     task.setExecutor(executorOptional.get());
                     task.setPriority(updateTaskDTO.getTaskPriority());
                     task.setStatus(updateTaskDTO.getTaskStatus());
-                    TaskDTO taskDTO = taskMapper.toDTO(taskRepository.save(task));
+                    TaskDTO taskDTO = toDTO(taskRepository.saveAndFlush(task));
                     return new ResourceResponseDTO<>("Task was successfully updated", taskDTO);
                 } else {
                     throw new ResourceNotFoundException("user", "id", String.valueOf(updateTaskDTO.getExecutorId()));
@@ -171,35 +301,78 @@ public class TaskServiceImpl implements TaskService{
 
     @Transactional
     @Override
-    public ResourceResponseDTO<TaskDTO> changeStatus(long id, ChangeStatusDTO changeStatusDTO) {
-        Optional<Task> taskOptional = taskRepository.findById(id);
+    public ResourceResponseDTO<TaskDTO> changeStatus(long id, ChangeStatusDTO changeStatusDTO, Set<String> expectedETags) {
+        long userId = currentUser.getUserId();
+        Optional<TaskView> taskOptional = taskRepository.updateStatus(id, userId, changeStatusDTO.getTaskStatus(), expectedETags);
         if (taskOptional.isPresent()) {
-            Task task = taskOptional.get();
-            UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-            User authenticated = userRepository.findByEmail(userDetails.getUsername()).get();
-            if (authenticated.getAssignedTasks().contains(task)) {
-                task.setStatus(changeStatusDTO.getTaskStatus());
-                TaskDTO taskDTO = taskMapper.toDTO( taskRepository.save(task));
-                return new ResourceResponseDTO<>("Task's status was successfully updated", taskDTO);
+            TaskDTO taskDTO = taskMapper.toDTO(taskOptional.get(), commentRepository.findLatestByTaskIds(List.of(id), COMMENT_PREVIEW_SIZE));
+            return new ResourceResponseDTO<>("Task's status was successfully updated", taskDTO);
+        }
+        Optional<Long> executorId = taskRepository.findExecutorIdById(id);
+        if (executorId.isEmpty()) {
+            throw new ResourceNotFoundException("task", "id", String.valueOf(id));
+        } else if (executorId.get() != userId) {
+            throw new AccessDeniedException("No access to this task");
+        } else {
+            throw new PreconditionFailedException("task", id);
+        }
+    }
+
+    /**
+     * One UPDATE changes the tasks of the current executor among the ids,
+     * the remaining ids are only read to tell denied from missing ones.
+     */
+    @Transactional
+    @Override
+    public ResourceResponseDTO<BulkResultDTO> changeStatusAll(BulkChangeStatusDTO bulkChangeStatusDTO) {
+        Set<Long> ids = new LinkedHashSet<>(bulkChangeStatusDTO.getIds());
+        Set<Long> updatedIds = new HashSet<>(
+                taskRepository.updateStatusAll(ids, currentUser.getUserId(), bulkChangeStatusDTO.getTaskStatus()));
+        Set<Long> existingIds = updatedIds.size() == ids.size() ? updatedIds : new HashSet<>(taskRepository.findExistingIds(ids));
+        List<Long> affectedIds = new ArrayList<>();
+        List<Long> deniedIds = new ArrayList<>();
+        List<Long> notFoundIds = new ArrayList<>();
+        for (Long id : ids) {
+            if (updatedIds.contains(id)) {
+                affectedIds.add(id);
+            } else if (existingIds.contains(id)) {
+                deniedIds.add(id);
             } else {
-                throw new AccessDeniedException("No access to this task");
+                notFoundIds.add(id);
             }
-        } else {
-            throw new ResourceNotFoundException("task", "id", String.valueOf(id));
         }
+        String message = String.format("Status of %d of %d tasks was successfully updated", affectedIds.size(), ids.size());
+        return new ResourceResponseDTO<>(message, new BulkResultDTO(affectedIds, deniedIds, notFoundIds));
     }
 
+    /**
+     * Tasks are matched among the ones of the current user, as in {@link #getAllByUserId}.
+     * Created ones are reassigned by one UPDATE that reports what it changed,
+     * matching tasks assigned by someone else are reported as denied.
+     */
     @Transactional
     @Override
-    public ResourceResponseDTO<TaskDTO> delete(long id) {
+    public ResourceResponseDTO<BulkResultDTO> reassignAll(TaskFilter filter, long executorId) {
+        if (!userRepository.existsById(executorId)) {
+            throw new ResourceNotFoundException("user", "id", String.valueOf(executorId));
+        }
+        long userId = currentUser.getUserId();
+        List<Long> affectedIds = taskRepository.reassignAll(userId, filter, executorId);
+        List<Long> deniedIds = taskRepository.findIds(assignedTo(userId).and(notCreatedBy(userId)).and(matches(filter)));
+        String message = String.format("%d tasks were successfully reassigned to the user with id = %d", affectedIds.size(), executorId);
+        return new ResourceResponseDTO<>(message, new BulkResultDTO(affectedIds, deniedIds, List.of()));
+    }
+
+    @Transactional
+    @Override
+    public ResourceResponseDTO<TaskDTO> delete(long id, Set<String> expectedETags) {
         Optional<Task> taskOptional = taskRepository.findById(id);
         if (taskOptional.isPresent()) {
             Task task = taskOptional.get();
-            UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-            User authenticated = userRepository.findByEmail(userDetails.getUsername()).get();
-            if (authenticated.getCreatedTasks().contains(task)) {
-                taskRepository.delete(task);
-                TaskDTO taskDTO = taskMapper.toDTO(task);
+            if (task.getCreator().getId() == currentUser.getUserId()) {
+                checkVersion(task, expectedETags);
+                taskRepository.deleteWithComments(task);
+                TaskDTO taskDTO = taskMapper.toDTO(task, List.of());
                 return new ResourceResponseDTO<>("Task was successfully deleted", taskDTO);
             } else {
                 throw new AccessDeniedException("No access to this task");
@@ -209,5 +382,134 @@ public class TaskServiceImpl implements TaskService{
         }
     }
 
+    /**
+     * Matches tasks like {@link #reassignAll}, deleting only created ones.
+     * Comments are removed by the database, so the cost doesn't depend on their number.
+     * Without filters every task of the user would match, so that has to be confirmed with {@code all}.
+     */
+    @Transactional
+    @Override
+    public ResourceResponseDTO<BulkResultDTO> deleteAll(TaskFilter filter, boolean all) {
+        if (!all && (filter == null || filter.isEmpty())) {
+            throw new FilterRequiredException("all");
+        }
+        long userId = currentUser.getUserId();
+        List<Long> affectedIds = taskRepository.deleteAllCreated(userId, filter);
+        List<Long> deniedIds = taskRepository.findIds(assignedTo(userId).and(notCreatedBy(userId)).and(matches(filter)));
+        String message = String.format("%d tasks were successfully deleted", affectedIds.size());
+        return new ResourceResponseDTO<>(message, new BulkResultDTO(affectedIds, deniedIds, List.of()));
+    }
+
+    private void write(Iterator<TaskView> tasks, DataFormat format, Writer writer) throws IOException {
+        if (format == DataFormat.CSV) {
+            writer.write(CSV_HEADER);
+            while (tasks.hasNext()) {
+                TaskView task = tasks.next();
+                writer.write(CsvUtils.row(task.id(), task.title(), task.description(), task.priority(), task.status(),
+                        task.commentCount(), task.creatorId(), task.creatorUsername(), task.creatorEmail(),
+                        task.executorId(), task.executorUsername(), task.executorEmail(), task.version(), task.updatedAt()));
+            }
+        } else {
+            ObjectWriter objectWriter = objectMapper.writerFor(TaskView.class);
+            while (tasks.hasNext()) {
+                writer.write(objectWriter.writeValueAsString(tasks.next()));
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static Task newTask(CreateTaskDTO createTaskDTO, User executor, User creator) {
+        return Task.builder()
+                .title(createTaskDTO.getTitle())
+                .description(createTaskDTO.getDescription())
+                .deadline(createTaskDTO.getDeadline())
+                .priority(createTaskDTO.getTaskPriority())
+                .status(TaskStatus.TODO)
+                .executor(executor)
+                .creator(creator)
+                .build();
+    }
+
+    /**
+     * Returns the constraint violations of one batch item in the format of the request validation errors,
+     * {@code null} when it is valid.
+     */
+    private String validate(CreateTaskDTO createTaskDTO) {
+        if (createTaskDTO == null) {
+            return "Task can't be null";
+        }
+        return ValidationUtils.describe(validator.validate(createTaskDTO));
+    }
+
+    private long resolveUserId(Long id) {
+        if (id == null) {
+            return currentUser.getUserId();
+        }
+        if (userRepository.existsById(id)) {
+            return id;
+        } else {
+            throw new ResourceNotFoundException("user", "id", String.valueOf(id));
+        }
+    }
+
+    /**
+     * Compares the {@code If-Match} tags with the ETag of the loaded task. A concurrent write after this check
+     * is caught by the version condition of Hibernate's own UPDATE/DELETE.
+     */
+    private static void checkVersion(Task task, Set<String> expectedETags) {
+        if (!ETagUtils.matches(expectedETags, task.getVersion(), task.getUpdatedAt())) {
+            throw new PreconditionFailedException("task", task.getId());
+        }
+    }
 
+    /**
+     * Maps a task with a preview of its latest comments, the whole thread is paged by the comment endpoints.
+     */
+    private TaskDTO toDTO(Task task) {
+        return taskMapper.toDTO(task, commentRepository.findLatestByTaskIds(List.of(task.getId()), COMMENT_PREVIEW_SIZE));
+    }
+
+    private PageResponseDTO<TaskDTO> findPage(String message, Specification<Task> specification, String cursor, int page, int size) {
+        List<TaskView> tasks = cursor == null && page > 0
+                ? taskRepository.findAll(specification, page * size, size + 1)
+                : taskRepository.findAllBefore(specification, CursorUtils.decode(cursor), size + 1);
+        return toPage(message, tasks, size);
+    }
+
+    /**
+     * Builds a page from a query that fetched one row more than {@code size}
+     * to find out whether there is a next page.
+     */
+    private PageResponseDTO<TaskDTO> toPage(String message, List<TaskView> tasks, int size) {
+        boolean hasNext = tasks.size() > size;
+        List<TaskView> content = hasNext ? tasks.subList(0, size) : tasks;
+        String nextCursor = hasNext ? CursorUtils.encode(content.getLast().id()) : null;
+        return new PageResponseDTO<>(message, toDTOList(content), nextCursor);
+    }
+
+    /**
+     * Maps a page of tasks with the comment previews of all of them read in one query.
+     */
+    private List<TaskDTO> toDTOList(List<TaskView> tasks) {
+        Map<Long, List<CommentPreview>> latestComments = tasks.isEmpty() ? Map.of() : commentRepository
+                .findLatestByTaskIds(tasks.stream().map(TaskView::id).toList(), COMMENT_PREVIEW_SIZE).stream()
+                .collect(Collectors.groupingBy(CommentPreview::getTaskId));
+        return tasks.stream()
+                .map(task -> taskMapper.toDTO(task, latestComments.getOrDefault(task.id(), List.of())))
+                .toList();
+    }
+
+    private static List<TaskView> mergeNewestFirst(List<TaskView> first, List<TaskView> second, int limit) {
+        List<TaskView> merged = new ArrayList<>(limit);
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < first.size() || j < second.size())) {
+            if (j == second.size() || (i < first.size() && first.get(i).id() > second.get(j).id())) {
+                merged.add(first.get(i++));
+            } else {
+                merged.add(second.get(j++));
+            }
+        }
+        return merged;
+    }
 }
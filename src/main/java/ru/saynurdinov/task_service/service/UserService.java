@@ -2,11 +2,15 @@ package ru.saynurdinov.task_service.service;
 
 import ru.saynurdinov.task_service.dto.AuthResponseDTO;
 import ru.saynurdinov.task_service.dto.LoginDTO;
+import ru.saynurdinov.task_service.dto.RefreshTokenDTO;
 import ru.saynurdinov.task_service.dto.RegisterDTO;
+import ru.saynurdinov.task_service.dto.ResponseDTO;
 
 public interface UserService {
 
     AuthResponseDTO addUser(RegisterDTO registerDTO);
     AuthResponseDTO signIn(LoginDTO loginDTO);
+    AuthResponseDTO refresh(RefreshTokenDTO refreshTokenDTO);
+    ResponseDTO signOut(RefreshTokenDTO refreshTokenDTO, String accessToken);
 
 }
@@ -1,11 +1,14 @@
 package ru.saynurdinov.task_service.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import io.jsonwebtoken.Claims;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -13,46 +16,62 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.saynurdinov.task_service.dto.AuthResponseDTO;
 import ru.saynurdinov.task_service.dto.LoginDTO;
+import ru.saynurdinov.task_service.dto.RefreshTokenDTO;
 import ru.saynurdinov.task_service.dto.RegisterDTO;
+import ru.saynurdinov.task_service.dto.ResponseDTO;
 import ru.saynurdinov.task_service.entity.User;
 import ru.saynurdinov.task_service.exception.ResourceNotFoundException;
 import ru.saynurdinov.task_service.exception.UserAlreadyExistsException;
 import ru.saynurdinov.task_service.mapper.UserMapper;
 import ru.saynurdinov.task_service.repository.UserRepository;
+import ru.saynurdinov.task_service.security.CachedUser;
+import ru.saynurdinov.task_service.security.TokenRevocationList;
+import ru.saynurdinov.task_service.security.UserCache;
 import ru.saynurdinov.task_service.util.JwtUtils;
 
 import java.util.Collections;
-import java.util.Optional;
 
 @Service
-public class UserServiceImpl implements UserDetailsService, UserService {
+public class UserServiceImpl implements UserDetailsService, UserDetailsPasswordService, UserService {
 
     private final UserRepository userRepository;
     private final AuthenticationManager authenticationManager;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtils jwtUtils;
     private final UserMapper userMapper;
+    private final UserCache userCache;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationList tokenRevocationList;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, @Lazy AuthenticationManager authenticationManager, @Lazy PasswordEncoder passwordEncoder, JwtUtils jwtUtils, UserMapper userMapper) {
+    public UserServiceImpl(UserRepository userRepository, @Lazy AuthenticationManager authenticationManager, @Lazy PasswordEncoder passwordEncoder, JwtUtils jwtUtils, UserMapper userMapper, UserCache userCache, RefreshTokenService refreshTokenService, TokenRevocationList tokenRevocationList) {
         this.userRepository = userRepository;
         this.authenticationManager = authenticationManager;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtils = jwtUtils;
         this.userMapper = userMapper;
+        this.userCache = userCache;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
-    @Transactional(readOnly = true)
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        Optional<User> optionalUser = userRepository.findByEmail(email);
-        if (optionalUser.isPresent()) {
-            User existedUser = optionalUser.get();
-            return new org.springframework.security.core.userdetails.User(existedUser.getEmail(),
-                    existedUser.getPassword(), Collections.emptyList());
-        } else {
-            throw new ResourceNotFoundException("user", "email", email);
-        }
+        CachedUser existedUser = loadCachedUser(email);
+        return new org.springframework.security.core.userdetails.User(existedUser.getEmail(),
+                existedUser.getPassword(), Collections.emptyList());
+    }
+
+    /**
+     * Called by the authentication provider after a successful login whose stored hash uses a different
+     * BCrypt cost than the configured one. Credentials don't change, so issued tokens stay valid.
+     */
+    @Transactional
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        userCache.evictAfterCommit(user.getUsername());
+        return new org.springframework.security.core.userdetails.User(user.getUsername(), newPassword, user.getAuthorities());
     }
 
     @Transactional
@@ -67,19 +86,45 @@ public class UserServiceImpl implements UserDetailsService, UserService {
                 .password(passwordEncoder.encode(registerDTO.getPassword()))
                 .build();
         userRepository.save(user);
-        String token = jwtUtils.generateToken(
-                new org.springframework.security.core.userdetails.User(user.getEmail(), user.getPassword(), Collections.emptyList()));
-        return new AuthResponseDTO("User was successfully registered", token, userMapper.toDTO(user));
+        userCache.evictAfterCommit(user.getEmail());
+        String token = jwtUtils.generateToken(user);
+        String refreshToken = refreshTokenService.create(user);
+        return new AuthResponseDTO("User was successfully registered", token, refreshToken, userMapper.toDTO(user));
     }
 
-    @Transactional(readOnly = true)
     @Override
     public AuthResponseDTO signIn(LoginDTO loginDTO) {
         Authentication auth = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginDTO.getEmail(), loginDTO.getPassword())
         );
-        String token = jwtUtils.generateToken((UserDetails) auth.getPrincipal());
-        User user = userRepository.findByEmail(((UserDetails) auth.getPrincipal()).getUsername()).get();
-        return new AuthResponseDTO("User was successfully authenticated", token, userMapper.toDTO(user));
+        User user = loadCachedUser(((UserDetails) auth.getPrincipal()).getUsername()).toUser();
+        String token = jwtUtils.generateToken(user);
+        String refreshToken = refreshTokenService.create(user);
+        return new AuthResponseDTO("User was successfully authenticated", token, refreshToken, userMapper.toDTO(user));
+    }
+
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    @Override
+    public AuthResponseDTO refresh(RefreshTokenDTO refreshTokenDTO) {
+        User user = refreshTokenService.rotate(refreshTokenDTO.getRefreshToken());
+        String token = jwtUtils.generateToken(user);
+        String refreshToken = refreshTokenService.create(user);
+        return new AuthResponseDTO("Token was successfully refreshed", token, refreshToken, userMapper.toDTO(user));
+    }
+
+    @Transactional
+    @Override
+    public ResponseDTO signOut(RefreshTokenDTO refreshTokenDTO, String accessToken) {
+        refreshTokenService.revoke(refreshTokenDTO.getRefreshToken());
+        if (accessToken != null) {
+            Claims claims = jwtUtils.getClaims(accessToken);
+            tokenRevocationList.revoke(claims.getId(), claims.getExpiration().toInstant());
+        }
+        return new ResponseDTO("User was successfully signed out");
+    }
+
+    private CachedUser loadCachedUser(String email) {
+        return userCache.get(email, userRepository::findByEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("user", "email", email));
     }
 }
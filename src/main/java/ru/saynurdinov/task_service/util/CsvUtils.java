@@ -0,0 +1,77 @@
+package ru.saynurdinov.task_service.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * RFC 4180 rows: fields with a separator, quote or line break are quoted, quotes inside are doubled.
+ * Null fields are written empty.
+ */
+public final class CsvUtils {
+
+    private CsvUtils() {
+    }
+
+    public static String row(Object... fields) {
+        return Arrays.stream(fields).map(CsvUtils::escape).collect(Collectors.joining(",", "", "\r\n"));
+    }
+
+    private static String escape(Object field) {
+        if (field == null) {
+            return "";
+        }
+        String value = field.toString();
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Reads the next record, quoted fields may contain separators and line breaks.
+     * Both CRLF and LF end a record. {@code reader} must support mark, such as a {@link java.io.BufferedReader}.
+     *
+     * @return fields of the record, {@code null} at the end of input
+     */
+    public static List<String> readRow(Reader reader) throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
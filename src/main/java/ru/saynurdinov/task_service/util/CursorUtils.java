@@ -0,0 +1,62 @@
+package ru.saynurdinov.task_service.util;
+
+import ru.saynurdinov.task_service.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursors. A cursor holds the id of the last row of a page,
+ * the next page starts right after it in {@code task_id DESC} order.
+ * Search cursors also hold the rank of that row, for {@code rank DESC, task_id DESC} order.
+ */
+public final class CursorUtils {
+
+    private CursorUtils() {
+    }
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the id after which the page starts, {@link Long#MAX_VALUE} for the first page.
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    public static String encode(float lastRank, long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((lastRank + ":" + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the rank and id after which a search page starts, {@code null} for the first page.
+     */
+    public static RankedPosition decodeRanked(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", -1);
+            if (parts.length != 2) {
+                throw new InvalidCursorException(cursor);
+            }
+            return new RankedPosition(Float.parseFloat(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    public record RankedPosition(float rank, long id) {
+    }
+}
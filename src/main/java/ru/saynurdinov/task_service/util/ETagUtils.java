@@ -0,0 +1,66 @@
+package ru.saynurdinov.task_service.util;
+
+import ru.saynurdinov.task_service.exception.PreconditionFailedException;
+import ru.saynurdinov.task_service.projection.CollectionStamp;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A task or comment ETag is {@code "<version>-<updatedAt millis>"}: updatedAt also moves on changes that don't bump
+ * the version, such as new comments under a task. If-Match on writes compares the whole tag, so after such a change
+ * the client has to read the resource again before writing it.
+ * Lists get weak ETags built from a {@link CollectionStamp} and no {@code Last-Modified}: deleting an item or
+ * moving a task out of a filter doesn't raise max(updated_at), only the count in the ETag catches those.
+ */
+public final class ETagUtils {
+
+    private ETagUtils() {
+    }
+
+    public static String of(long version, Instant updatedAt) {
+        return "\"" + version + "-" + lastModified(updatedAt) + "\"";
+    }
+
+    public static String weak(CollectionStamp stamp) {
+        return "W/\"" + stamp.count() + "-" + lastModified(stamp.lastUpdatedAt()) + "\"";
+    }
+
+    /**
+     * Epoch millis for {@code Last-Modified}, -1 (no header) when there is nothing to date.
+     */
+    public static long lastModified(Instant updatedAt) {
+        return updatedAt == null ? -1 : updatedAt.toEpochMilli();
+    }
+
+    /**
+     * Reads the ETags a client accepts from an {@code If-Match} header, a comma-separated list, quotes included.
+     * Returns {@code null} when the header is absent or {@code *}, i.e. the write is unconditional.
+     * If-Match uses strong comparison: a tag matches only if it equals {@link #of} of the current row as a whole,
+     * see {@link #matches}. Weak tags never match, and a header without any strong tag fails the precondition.
+     */
+    public static Set<String> parseIfMatch(String ifMatch, String resourceName, long id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<String> eTags = new HashSet<>();
+        for (String element : ifMatch.split(",")) {
+            String tag = element.trim();
+            if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                eTags.add(tag);
+            }
+        }
+        if (eTags.isEmpty()) {
+            throw new PreconditionFailedException(resourceName, id);
+        }
+        return eTags;
+    }
+
+    /**
+     * Whether one of the {@code If-Match} tags is the current ETag, {@code null} tags match anything.
+     */
+    public static boolean matches(Set<String> expectedETags, long version, Instant updatedAt) {
+        return expectedETags == null || expectedETags.contains(of(version, updatedAt));
+    }
+}
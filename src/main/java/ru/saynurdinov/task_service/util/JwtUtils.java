@@ -1,39 +1,98 @@
 package ru.saynurdinov.task_service.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import ru.saynurdinov.task_service.entity.User;
 
+import javax.crypto.SecretKey;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtils {
 
-    @Value("${jwt.key}")
-    private  String signingKey;
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String TOKEN_VERSION_CLAIM = "ver";
 
-    @Value("${jwt.expiration}")
-    private  Duration expiration;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Duration expiration;
 
-    public String generateToken(UserDetails userDetails) {
+    /**
+     * Claims of tokens whose signature was already verified, keyed by the SHA-256 digest of the token.
+     * Every entry expires together with its token, so a cache hit is always a valid, unexpired token.
+     */
+    private final Cache<String, Claims> verifiedTokens;
+
+    public JwtUtils(@Value("${jwt.key}") String signingKey,
+                    @Value("${jwt.expiration}") Duration expiration,
+                    @Value("${jwt.cache.max-size}") long cacheMaxSize) {
+        this.signingKey = Keys.hmacShaKeyFor(signingKey.getBytes());
+        this.parser = Jwts.parser()
+                .verifyWith(this.signingKey)
+                .build();
+        this.expiration = expiration;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+    }
+
+    public String generateToken(User user) {
         Date issuedDate = new Date();
         return Jwts.builder()
-                .subject(userDetails.getUsername())
+                .id(UUID.randomUUID().toString())
+                .subject(user.getEmail())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(TOKEN_VERSION_CLAIM, user.getTokenVersion())
                 .issuedAt(issuedDate)
                 .expiration(new Date(issuedDate.getTime() + expiration.toMillis()))
-                .signWith(Keys.hmacShaKeyFor(signingKey.getBytes()))
+                .signWith(signingKey)
                 .compact();
     }
 
     public Claims getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(Keys.hmacShaKeyFor(signingKey.getBytes()))
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        String digest = HashUtils.sha256(token);
+        Claims claims = verifiedTokens.getIfPresent(digest);
+        if (claims == null) {
+            claims = parser.parseSignedClaims(token).getPayload();
+            verifiedTokens.put(digest, claims);
+        }
+        return claims;
+    }
+
+    public Long getUserId(Claims claims) {
+        return claims.get(USER_ID_CLAIM, Long.class);
+    }
+
+    public Integer getTokenVersion(Claims claims) {
+        return claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+    }
+
+    private static final class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+            return Duration.between(Instant.now(), claims.getExpiration().toInstant()).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,26 @@
+package ru.saynurdinov.task_service.util;
+
+import jakarta.validation.ConstraintViolation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+public final class ValidationUtils {
+
+    private ValidationUtils() {
+    }
+
+    /**
+     * Formats constraint violations like the request validation errors, {@code null} when there are none.
+     * Used where items are validated one by one and reported per item instead of failing the request.
+     */
+    public static String describe(Set<? extends ConstraintViolation<?>> violations) {
+        if (violations.isEmpty()) {
+            return null;
+        }
+        Map<String, String> errors = new HashMap<>();
+        violations.forEach(violation -> errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+        return errors.toString();
+    }
+}
@@ -0,0 +1,7 @@
+-- Same switch as V7 for comments: ids reserved in blocks of 50, so imported comments are inserted in JDBC batches.
+CREATE SEQUENCE IF NOT EXISTS comment_seq INCREMENT BY 50;
+SELECT setval('comment_seq', (SELECT COALESCE(MAX(comment_id), 0) FROM comments) + 50, false);
+
+ALTER TABLE comments ALTER COLUMN comment_id DROP IDENTITY IF EXISTS;
+ALTER TABLE comments ALTER COLUMN comment_id SET DEFAULT nextval('comment_seq');
+ALTER SEQUENCE comment_seq OWNED BY comments.comment_id;
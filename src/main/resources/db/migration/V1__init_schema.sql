@@ -0,0 +1,46 @@
+-- Schema previously generated by hibernate ddl-auto: update.
+-- IF NOT EXISTS lets databases created that way be migrated in place.
+
+CREATE TABLE IF NOT EXISTS users
+(
+    user_id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username      VARCHAR(255) NOT NULL UNIQUE,
+    email         VARCHAR(255) NOT NULL UNIQUE,
+    password      VARCHAR(255) NOT NULL,
+    token_version INTEGER      NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS tasks
+(
+    task_id     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title       VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    status      VARCHAR(255) NOT NULL CHECK (status IN ('TODO', 'IN_PROGRESS', 'DONE')),
+    priority    VARCHAR(255) NOT NULL CHECK (priority IN ('LOW', 'MEDIUM', 'HIGH')),
+    deadline    TIMESTAMP(6),
+    creator_id  BIGINT       NOT NULL REFERENCES users (user_id),
+    executor_id BIGINT       NOT NULL REFERENCES users (user_id)
+);
+
+CREATE TABLE IF NOT EXISTS comments
+(
+    comment_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    text       VARCHAR(255) NOT NULL,
+    owner_id   BIGINT       NOT NULL REFERENCES users (user_id),
+    task_id    BIGINT       NOT NULL REFERENCES tasks (task_id)
+);
+
+CREATE TABLE IF NOT EXISTS refresh_tokens
+(
+    refresh_token_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    token_hash       VARCHAR(64)                 NOT NULL UNIQUE,
+    user_id          BIGINT                      NOT NULL REFERENCES users (user_id),
+    expires_at       TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    revoked          BOOLEAN                     NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS revoked_tokens
+(
+    token_id   VARCHAR(36)                 NOT NULL PRIMARY KEY,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,19 @@
+-- Task lists filter by owner, status and priority and page by task_id (see TaskRepository).
+CREATE INDEX IF NOT EXISTS idx_tasks_creator_status_priority_id
+    ON tasks (creator_id, status, priority, task_id);
+
+CREATE INDEX IF NOT EXISTS idx_tasks_executor_status_priority_id
+    ON tasks (executor_id, status, priority, task_id);
+
+CREATE INDEX IF NOT EXISTS idx_comments_task_id_comment_id
+    ON comments (task_id, comment_id);
+
+-- Reuse detection revokes all tokens of a user, cleanup jobs delete by expiry.
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user_id
+    ON refresh_tokens (user_id);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at
+    ON refresh_tokens (expires_at);
+
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires_at
+    ON revoked_tokens (expires_at);
@@ -0,0 +1,8 @@
+-- Unfiltered task lists page by task_id within one creator or executor.
+-- These keep both branches of the "all my tasks" union index-ordered,
+-- the (…, status, priority, task_id) indexes only do that when both filters are set.
+CREATE INDEX IF NOT EXISTS idx_tasks_creator_id_task_id
+    ON tasks (creator_id, task_id);
+
+CREATE INDEX IF NOT EXISTS idx_tasks_executor_id_task_id
+    ON tasks (executor_id, task_id);
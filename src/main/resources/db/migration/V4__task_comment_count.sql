@@ -0,0 +1,4 @@
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS comment_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE tasks t
+SET comment_count = (SELECT count(*) FROM comments c WHERE c.task_id = t.task_id);
@@ -0,0 +1,8 @@
+-- Hibernate reserves ids in blocks of 50 from this sequence (pooled optimizer), so task inserts can be batched.
+-- The first nextval returns the upper end of the first block, so start 50 above the current maximum.
+CREATE SEQUENCE IF NOT EXISTS task_seq INCREMENT BY 50;
+SELECT setval('task_seq', (SELECT COALESCE(MAX(task_id), 0) FROM tasks) + 50, false);
+
+ALTER TABLE tasks ALTER COLUMN task_id DROP IDENTITY IF EXISTS;
+ALTER TABLE tasks ALTER COLUMN task_id SET DEFAULT nextval('task_seq');
+ALTER SEQUENCE task_seq OWNED BY tasks.task_id;
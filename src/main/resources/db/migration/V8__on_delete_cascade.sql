@@ -0,0 +1,33 @@
+-- Children are deleted by the database, so deleting a task or a user is one statement
+-- however many comments and tasks hang off it.
+-- Constraint names differ between databases created by ddl-auto and by V1, so they are looked up.
+DO
+$$
+    DECLARE
+        fk RECORD;
+    BEGIN
+        FOR fk IN
+            SELECT conname, conrelid::regclass AS table_name
+            FROM pg_constraint
+            WHERE contype = 'f'
+              AND conrelid IN ('tasks'::regclass, 'comments'::regclass, 'refresh_tokens'::regclass)
+            LOOP
+                EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.table_name, fk.conname);
+            END LOOP;
+    END
+$$;
+
+ALTER TABLE tasks
+    ADD CONSTRAINT fk_tasks_creator FOREIGN KEY (creator_id) REFERENCES users (user_id) ON DELETE CASCADE,
+    ADD CONSTRAINT fk_tasks_executor FOREIGN KEY (executor_id) REFERENCES users (user_id) ON DELETE CASCADE;
+
+ALTER TABLE comments
+    ADD CONSTRAINT fk_comments_task FOREIGN KEY (task_id) REFERENCES tasks (task_id) ON DELETE CASCADE,
+    ADD CONSTRAINT fk_comments_owner FOREIGN KEY (owner_id) REFERENCES users (user_id) ON DELETE CASCADE;
+
+ALTER TABLE refresh_tokens
+    ADD CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES users (user_id) ON DELETE CASCADE;
+
+-- The cascade from users looks comments up by owner, the other foreign keys already lead an index.
+CREATE INDEX IF NOT EXISTS idx_comments_owner_id
+    ON comments (owner_id);
@@ -0,0 +1,12 @@
+-- Full-text search over title (weight A) and description (weight B), see TaskRepositoryCustomImpl#search.
+-- The 'simple' configuration doesn't stem, so titles in any language are matched by whole words.
+-- The column is generated, so no application write can leave it stale.
+ALTER TABLE tasks
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (
+            setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+            setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+            ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_tasks_search_vector
+    ON tasks USING GIN (search_vector);
@@ -10,9 +10,6 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import ru.saynurdinov.task_service.dto.CommentDTO;
 import ru.saynurdinov.task_service.dto.CreateCommentDTO;
 import ru.saynurdinov.task_service.dto.ResourceResponseDTO;
@@ -20,22 +17,26 @@ import ru.saynurdinov.task_service.dto.UpdateCommentDTO;
 import ru.saynurdinov.task_service.entity.Comment;
 import ru.saynurdinov.task_service.entity.Task;
 import ru.saynurdinov.task_service.entity.User;
+import ru.saynurdinov.task_service.exception.PreconditionFailedException;
 import ru.saynurdinov.task_service.exception.ResourceNotFoundException;
 import ru.saynurdinov.task_service.mapper.CommentMapper;
 import ru.saynurdinov.task_service.repository.CommentRepository;
 import ru.saynurdinov.task_service.repository.TaskRepository;
-import ru.saynurdinov.task_service.repository.UserRepository;
+import ru.saynurdinov.task_service.security.CurrentUserResolver;
+import ru.saynurdinov.task_service.util.ETagUtils;
 
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -45,7 +46,7 @@ public class CommentServiceImplTest {
     private CommentRepository commentRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private CurrentUserResolver currentUser;
 
     @Mock
     private TaskRepository taskRepository;
@@ -65,18 +66,6 @@ public class CommentServiceImplTest {
                 .username("username")
                 .password("password")
                 .build();
-
-        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
-                authenticatedUser.getUsername(),
-                authenticatedUser.getPassword(),
-                Collections.emptyList());
-
-        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                userDetails,
-                null,
-                Collections.emptyList());
-
-        SecurityContextHolder.getContext().setAuthentication(authentication);
     }
 
     @BeforeEach
@@ -88,13 +77,12 @@ public class CommentServiceImplTest {
     void testGetAllByTaskId_TaskFound_ReturnsCommentDTOList() {
         Long id = 1L;
 
-        Task task = new Task();
         Comment comment = new Comment();
         List<Comment> commentList = Collections.singletonList(comment);
         Slice<Comment> commentPage = new SliceImpl<>(commentList);
         CommentDTO commentDTO = new CommentDTO();
 
-        when(taskRepository.findById(id)).thenReturn(Optional.of(task));
+        when(taskRepository.existsById(id)).thenReturn(true);
         when(commentRepository.findByTaskId(eq(id), any(PageRequest.class))).thenReturn(commentPage);
         when(commentMapper.toDTO(comment)).thenReturn(commentDTO);
 
@@ -109,7 +97,7 @@ public class CommentServiceImplTest {
     void testGetAllByTaskId_TaskNotFound_ThrowsResourceNotFoundException() {
         Long id = 1L;
 
-        when(taskRepository.findById(id)).thenReturn(Optional.empty());
+        when(taskRepository.existsById(id)).thenReturn(false);
 
         assertThrows(ResourceNotFoundException.class, () -> commentService.getAllByTaskId(id, 0, 10));
     }
@@ -124,13 +112,16 @@ public class CommentServiceImplTest {
         Comment comment = new Comment();
         CommentDTO commentDTO = new CommentDTO();
 
-        when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
-        when(commentRepository.save(any(Comment.class))).thenReturn(comment);
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(authenticatedUser));
+        when(taskRepository.existsById(taskId)).thenReturn(true);
+        when(taskRepository.getReferenceById(taskId)).thenReturn(task);
+        when(commentRepository.saveAndFlush(any(Comment.class))).thenReturn(comment);
+        when(currentUser.getReference()).thenReturn(authenticatedUser);
         when(commentMapper.toDTO(comment)).thenReturn(commentDTO);
 
         ResourceResponseDTO<CommentDTO> response = commentService.create(taskId, createCommentDTO);
 
+        verify(commentRepository).saveAndFlush(any(Comment.class));
+        verify(taskRepository).addToCommentCount(eq(taskId), eq(1), any(Instant.class));
         assertNotNull(response);
         assertEquals(commentDTO, response.getBody());
         assertEquals(taskId, response.getBody().getTaskId());
@@ -141,7 +132,7 @@ public class CommentServiceImplTest {
         Long taskId = 1L;
         CreateCommentDTO createCommentDTO = new CreateCommentDTO("text");
 
-        when(taskRepository.findById(taskId)).thenReturn(Optional.empty());
+        when(taskRepository.existsById(taskId)).thenReturn(false);
 
         assertThrows(ResourceNotFoundException.class, () -> commentService.create(taskId, createCommentDTO));
     }
@@ -152,9 +143,9 @@ public class CommentServiceImplTest {
         Long commentId = 2L;
         UpdateCommentDTO updateCommentDTO = new UpdateCommentDTO("text");
 
-        when(taskRepository.findById(taskId)).thenReturn(Optional.empty());
+        when(taskRepository.existsById(taskId)).thenReturn(false);
 
-        assertThrows(ResourceNotFoundException.class, () -> commentService.update(taskId, commentId, updateCommentDTO));
+        assertThrows(ResourceNotFoundException.class, () -> commentService.update(taskId, commentId, updateCommentDTO, null));
     }
 
     @Test
@@ -163,12 +154,11 @@ public class CommentServiceImplTest {
         Long commentId = 2L;
         UpdateCommentDTO updateCommentDTO = new UpdateCommentDTO("text");
 
-        Task task = new Task();
 
-        when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
+        when(taskRepository.existsById(taskId)).thenReturn(true);
         when(commentRepository.findById(commentId)).thenReturn(Optional.empty());
 
-        assertThrows(ResourceNotFoundException.class, () -> commentService.update(taskId, commentId, updateCommentDTO));
+        assertThrows(ResourceNotFoundException.class, () -> commentService.update(taskId, commentId, updateCommentDTO, null));
     }
 
     @Test
@@ -177,18 +167,17 @@ public class CommentServiceImplTest {
         Long commentId = 2L;
         UpdateCommentDTO updateCommentDTO = new UpdateCommentDTO("text");
 
-        Task task = new Task();
         Comment comment = new Comment();
         User other = new User();
         comment.setOwner(other);
         other.setComments(Collections.singletonList(comment));
         authenticatedUser.setComments(Collections.emptyList());
 
-        when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
+        when(taskRepository.existsById(taskId)).thenReturn(true);
         when(commentRepository.findById(commentId)).thenReturn(Optional.of(comment));
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(authenticatedUser));
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
 
-        assertThrows(AccessDeniedException.class, () -> commentService.update(taskId, commentId, updateCommentDTO));
+        assertThrows(AccessDeniedException.class, () -> commentService.update(taskId, commentId, updateCommentDTO, null));
     }
 
     @Test
@@ -198,20 +187,24 @@ public class CommentServiceImplTest {
         UpdateCommentDTO updateCommentDTO = new UpdateCommentDTO("text");
 
         Task task = new Task();
+        task.setId(taskId);
         Comment comment = new Comment();
         comment.setOwner(authenticatedUser);
+        comment.setTask(task);
+        comment.setUpdatedAt(Instant.now());
         authenticatedUser.setComments(Collections.singletonList(comment));
         CommentDTO commentDTO = new CommentDTO();
 
-        when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
+        when(taskRepository.existsById(taskId)).thenReturn(true);
         when(commentRepository.findById(commentId)).thenReturn(Optional.of(comment));
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(authenticatedUser));
-        when(commentRepository.save(any(Comment.class))).thenReturn(comment);
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(commentRepository.saveAndFlush(any(Comment.class))).thenReturn(comment);
         when(commentMapper.toDTO(comment)).thenReturn(commentDTO);
 
 
-        ResourceResponseDTO<CommentDTO> response = commentService.update(taskId,commentId, updateCommentDTO);
+        ResourceResponseDTO<CommentDTO> response = commentService.update(taskId,commentId, updateCommentDTO, null);
 
+        verify(taskRepository).touch(taskId, comment.getUpdatedAt());
         assertNotNull(response);
         assertEquals(commentDTO, response.getBody());
     }
@@ -221,9 +214,9 @@ public class CommentServiceImplTest {
         Long taskId = 1L;
         Long commentId = 2L;
 
-        when(taskRepository.findById(taskId)).thenReturn(Optional.empty());
+        when(taskRepository.existsById(taskId)).thenReturn(false);
 
-        assertThrows(ResourceNotFoundException.class, () -> commentService.delete(taskId, commentId));
+        assertThrows(ResourceNotFoundException.class, () -> commentService.delete(taskId, commentId, null));
     }
 
     @Test
@@ -231,12 +224,11 @@ public class CommentServiceImplTest {
         Long taskId = 1L;
         Long commentId = 2L;
 
-        Task task = new Task();
 
-        when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
+        when(taskRepository.existsById(taskId)).thenReturn(true);
         when(commentRepository.findById(commentId)).thenReturn(Optional.empty());
 
-        assertThrows(ResourceNotFoundException.class, () -> commentService.delete(taskId, commentId));
+        assertThrows(ResourceNotFoundException.class, () -> commentService.delete(taskId, commentId, null));
     }
 
     @Test
@@ -244,18 +236,17 @@ public class CommentServiceImplTest {
         Long taskId = 1L;
         Long commentId = 2L;
 
-        Task task = new Task();
         Comment comment = new Comment();
         User other = new User();
         comment.setOwner(other);
         other.setComments(Collections.singletonList(comment));
         authenticatedUser.setComments(Collections.emptyList());
 
-        when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
+        when(taskRepository.existsById(taskId)).thenReturn(true);
         when(commentRepository.findById(commentId)).thenReturn(Optional.of(comment));
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(authenticatedUser));
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
 
-        assertThrows(AccessDeniedException.class, () -> commentService.delete(taskId, commentId));
+        assertThrows(AccessDeniedException.class, () -> commentService.delete(taskId, commentId, null));
     }
 
     @Test
@@ -264,24 +255,44 @@ public class CommentServiceImplTest {
         Long commentId = 2L;
 
         Task task = new Task();
+        task.setId(taskId);
         Comment comment = new Comment();
         comment.setOwner(authenticatedUser);
+        comment.setTask(task);
         authenticatedUser.setComments(Collections.singletonList(comment));
         CommentDTO commentDTO = new CommentDTO();
 
-        when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
+        when(taskRepository.existsById(taskId)).thenReturn(true);
         when(commentRepository.findById(commentId)).thenReturn(Optional.of(comment));
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(authenticatedUser));
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
         when(commentMapper.toDTO(comment)).thenReturn(commentDTO);
 
 
-        ResourceResponseDTO<CommentDTO> response = commentService.delete(taskId,commentId);
+        ResourceResponseDTO<CommentDTO> response = commentService.delete(taskId,commentId, null);
 
         verify(commentRepository).delete(comment);
+        verify(taskRepository).addToCommentCount(eq(taskId), eq(-1), any(Instant.class));
         assertNotNull(response);
         assertEquals(commentDTO, response.getBody());
     }
 
+    @Test
+    void testDelete_CommentBelongsToUserAndVersionChanged_ThrowsPreconditionFailedException() {
+        Long taskId = 1L;
+        Long commentId = 2L;
+
+        Comment comment = new Comment();
+        comment.setOwner(authenticatedUser);
+        comment.setVersion(2L);
+
+        when(taskRepository.existsById(taskId)).thenReturn(true);
+        when(commentRepository.findById(commentId)).thenReturn(Optional.of(comment));
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+
+        assertThrows(PreconditionFailedException.class, () -> commentService.delete(taskId, commentId, Set.of(ETagUtils.of(1L, comment.getUpdatedAt()))));
+        verify(commentRepository, never()).delete(any(Comment.class));
+    }
+
 
 
 
@@ -0,0 +1,141 @@
+package ru.saynurdinov.task_service.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.BadCredentialsException;
+import ru.saynurdinov.task_service.entity.RefreshToken;
+import ru.saynurdinov.task_service.entity.User;
+import ru.saynurdinov.task_service.repository.RefreshTokenRepository;
+import ru.saynurdinov.task_service.repository.UserRepository;
+import ru.saynurdinov.task_service.security.TokenVersionRegistry;
+import ru.saynurdinov.task_service.security.UserCache;
+import ru.saynurdinov.task_service.util.HashUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RefreshTokenServiceImplTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Mock
+    private UserCache userCache;
+
+    private RefreshTokenServiceImpl refreshTokenService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        refreshTokenService = new RefreshTokenServiceImpl(refreshTokenRepository, userRepository, tokenVersionRegistry, userCache, Duration.ofDays(30));
+        user = new User();
+        user.setId(1);
+        user.setEmail("username@mail.com");
+    }
+
+    @Test
+    void testCreate_StoresOnlyHashOfToken() {
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+
+        String token = refreshTokenService.create(user);
+
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        RefreshToken saved = captor.getValue();
+        assertNotEquals(token, saved.getTokenHash());
+        assertEquals(HashUtils.sha256(token), saved.getTokenHash());
+        assertEquals(user, saved.getUser());
+        assertFalse(saved.isRevoked());
+    }
+
+    @Test
+    void testRotate_ValidToken_ClaimsTokenAndReturnsUser() {
+        RefreshToken token = RefreshToken.builder()
+                .id(5L)
+                .tokenHash(HashUtils.sha256("token"))
+                .user(user)
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build();
+        when(refreshTokenRepository.findByTokenHash(HashUtils.sha256("token"))).thenReturn(Optional.of(token));
+        when(refreshTokenRepository.claim(5L)).thenReturn(1);
+
+        User result = refreshTokenService.rotate("token");
+
+        assertEquals(user, result);
+        verify(refreshTokenRepository, never()).revokeAllByUserId(anyLong());
+    }
+
+    @Test
+    void testRotate_TokenClaimedConcurrently_RevokesAllTokensOfUser() {
+        RefreshToken token = RefreshToken.builder()
+                .id(5L)
+                .tokenHash(HashUtils.sha256("token"))
+                .user(user)
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build();
+        when(refreshTokenRepository.findByTokenHash(HashUtils.sha256("token"))).thenReturn(Optional.of(token));
+        when(refreshTokenRepository.claim(5L)).thenReturn(0);
+
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("token"));
+        verify(refreshTokenRepository).revokeAllByUserId(1L);
+        verify(tokenVersionRegistry).incrementVersion(1L);
+    }
+
+    @Test
+    void testRotate_RevokedToken_RevokesAllTokensOfUser() {
+        RefreshToken token = RefreshToken.builder()
+                .tokenHash(HashUtils.sha256("token"))
+                .user(user)
+                .expiresAt(Instant.now().plusSeconds(60))
+                .revoked(true)
+                .build();
+        when(refreshTokenRepository.findByTokenHash(HashUtils.sha256("token"))).thenReturn(Optional.of(token));
+
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("token"));
+        verify(refreshTokenRepository).revokeAllByUserId(1L);
+        verify(tokenVersionRegistry).incrementVersion(1L);
+        verify(userCache).evictAfterCommit("username@mail.com");
+    }
+
+    @Test
+    void testRotate_ExpiredToken_ThrowsBadCredentialsException() {
+        RefreshToken token = RefreshToken.builder()
+                .tokenHash(HashUtils.sha256("token"))
+                .user(user)
+                .expiresAt(Instant.now().minusSeconds(60))
+                .build();
+        when(refreshTokenRepository.findByTokenHash(HashUtils.sha256("token"))).thenReturn(Optional.of(token));
+
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("token"));
+        verify(refreshTokenRepository, never()).revokeAllByUserId(anyLong());
+    }
+
+    @Test
+    void testRotate_UnknownToken_ThrowsBadCredentialsException() {
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("token"));
+    }
+}
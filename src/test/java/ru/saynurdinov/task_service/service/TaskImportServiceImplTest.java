@@ -0,0 +1,215 @@
+package ru.saynurdinov.task_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Path;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.saynurdinov.task_service.dto.DataFormat;
+import ru.saynurdinov.task_service.dto.ImportProgressDTO;
+import ru.saynurdinov.task_service.dto.ImportTaskDTO;
+import ru.saynurdinov.task_service.entity.Comment;
+import ru.saynurdinov.task_service.entity.Task;
+import ru.saynurdinov.task_service.entity.User;
+import ru.saynurdinov.task_service.entity.enums.TaskPriority;
+import ru.saynurdinov.task_service.repository.CommentRepository;
+import ru.saynurdinov.task_service.repository.TaskRepository;
+import ru.saynurdinov.task_service.repository.UserRepository;
+import ru.saynurdinov.task_service.security.CurrentUserResolver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TaskImportServiceImplTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CurrentUserResolver currentUser;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private TaskImportServiceImpl taskImportService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        taskImportService = new TaskImportServiceImpl(taskRepository, commentRepository, userRepository, currentUser,
+                validator, objectMapper, entityManager, transactionManager);
+        user = User.builder()
+                .id(1L)
+                .username("username")
+                .password("password")
+                .build();
+
+        when(currentUser.getUserId()).thenReturn(user.getId());
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(user));
+        when(entityManager.unwrap(Session.class)).thenReturn(mock(Session.class));
+        when(validator.validate(any(ImportTaskDTO.class))).thenReturn(Set.of());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testImportTasks_Ndjson_ImportsValidRowsAndReportsRejectedOnes() throws Exception {
+        String input = """
+                {"title":"first","description":"d","taskPriority":"HIGH","deadline":"2100-01-01T00:00:00","executorId":1,"comments":[{"text":"a"},{"text":"b"}]}
+                not json
+
+                {"title":"third","description":"d","taskPriority":"LOW","deadline":"2100-01-01T00:00:00","executorId":2}
+                """;
+
+        List<ImportProgressDTO> progress = importTasks(input, DataFormat.NDJSON);
+
+        assertEquals(1, progress.size());
+        ImportProgressDTO last = progress.getFirst();
+        assertTrue(last.isDone());
+        assertEquals(3, last.getRowsRead());
+        assertEquals(1, last.getTasksImported());
+        assertEquals(2, last.getCommentsImported());
+        assertEquals(2, last.getRowsFailed());
+        assertEquals(2, last.getErrors().getFirst().getIndex());
+        assertEquals(400, last.getErrors().getFirst().getStatus());
+        assertEquals(4, last.getErrors().get(1).getIndex());
+        assertEquals(404, last.getErrors().get(1).getStatus());
+
+        ArgumentCaptor<List<Task>> tasks = ArgumentCaptor.forClass(List.class);
+        verify(taskRepository).saveAll(tasks.capture());
+        assertEquals(1, tasks.getValue().size());
+        assertEquals("first", tasks.getValue().getFirst().getTitle());
+        assertEquals(2, tasks.getValue().getFirst().getCommentCount());
+        ArgumentCaptor<List<Comment>> comments = ArgumentCaptor.forClass(List.class);
+        verify(commentRepository).saveAll(comments.capture());
+        assertEquals(tasks.getValue().getFirst(), comments.getValue().getFirst().getTask());
+        verify(entityManager).clear();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testImportTasks_Csv_ParsesQuotedFieldsAndRejectsMismatchedRows() throws Exception {
+        String input = "title,description,taskPriority,deadline,executorId\r\n" +
+                "\"title, \"\"quoted\"\"\",\"multi\nline\",MEDIUM,2100-01-01T00:00:00,1\r\n" +
+                "short,row\r\n";
+
+        ImportProgressDTO progress = importTasks(input, DataFormat.CSV).getFirst();
+
+        assertEquals(2, progress.getRowsRead());
+        assertEquals(1, progress.getTasksImported());
+        assertEquals(1, progress.getRowsFailed());
+        assertEquals(3, progress.getErrors().getFirst().getIndex());
+
+        ArgumentCaptor<List<Task>> tasks = ArgumentCaptor.forClass(List.class);
+        verify(taskRepository).saveAll(tasks.capture());
+        Task task = tasks.getValue().getFirst();
+        assertEquals("title, \"quoted\"", task.getTitle());
+        assertEquals("multi\nline", task.getDescription());
+        assertEquals(TaskPriority.MEDIUM, task.getPriority());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testImportTasks_NoValidRows_DoesNotOpenTransaction() throws Exception {
+        ConstraintViolation<ImportTaskDTO> violation = mock(ConstraintViolation.class);
+        Path path = mock(Path.class);
+        when(path.toString()).thenReturn("title");
+        when(violation.getPropertyPath()).thenReturn(path);
+        when(violation.getMessage()).thenReturn("Title can't be blank");
+        when(validator.validate(any(ImportTaskDTO.class))).thenReturn(Set.of(violation));
+
+        ImportProgressDTO progress = importTasks("{\"title\":\"\"}\n", DataFormat.NDJSON).getFirst();
+
+        assertEquals(1, progress.getRowsFailed());
+        assertEquals(400, progress.getErrors().getFirst().getStatus());
+        assertEquals("{title=Title can't be blank}", progress.getErrors().getFirst().getMessage());
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    @Test
+    void testImportTasks_ManyComments_ClosesBatchByEntityCount() throws Exception {
+        String comments = String.join(",", Collections.nCopies(ImportTaskDTO.MAX_COMMENTS, "{\"text\":\"c\"}"));
+        String row = "{\"title\":\"t\",\"description\":\"d\",\"taskPriority\":\"LOW\",\"deadline\":\"2100-01-01T00:00:00\"," +
+                "\"executorId\":1,\"comments\":[" + comments + "]}\n";
+
+        List<ImportProgressDTO> progress = importTasks(row.repeat(6), DataFormat.NDJSON);
+
+        assertEquals(2, progress.size());
+        assertEquals(5, progress.getFirst().getTasksImported());
+        assertEquals(5 * ImportTaskDTO.MAX_COMMENTS, progress.getFirst().getCommentsImported());
+        assertEquals(6, progress.getLast().getTasksImported());
+        assertTrue(progress.getLast().isDone());
+        verify(taskRepository, times(2)).saveAll(any());
+    }
+
+    @Test
+    void testImportTasks_BatchFails_ReportsItsRowsAndFinishes() throws Exception {
+        String input = """
+                {"title":"first","description":"d","taskPriority":"HIGH","deadline":"2100-01-01T00:00:00","executorId":1}
+                {"title":"second","description":"d","taskPriority":"LOW","deadline":"2100-01-01T00:00:00","executorId":2}
+                """;
+        when(taskRepository.saveAll(any())).thenThrow(new DataIntegrityViolationException("constraint violated"));
+
+        List<ImportProgressDTO> progress = importTasks(input, DataFormat.NDJSON);
+
+        assertEquals(1, progress.size());
+        ImportProgressDTO last = progress.getFirst();
+        assertTrue(last.isDone());
+        assertEquals(0, last.getTasksImported());
+        assertEquals(2, last.getRowsFailed());
+        assertEquals(1, last.getErrors().getFirst().getIndex());
+        assertEquals(500, last.getErrors().getFirst().getStatus());
+        assertEquals(2, last.getErrors().get(1).getIndex());
+        assertEquals(500, last.getErrors().get(1).getStatus());
+        verify(entityManager).clear();
+    }
+
+    private List<ImportProgressDTO> importTasks(String input, DataFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        taskImportService.importTasks(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), format).writeTo(out);
+        List<ImportProgressDTO> progress = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            progress.add(objectMapper.readValue(line, ImportProgressDTO.class));
+        }
+        return progress;
+    }
+}
@@ -1,43 +1,74 @@
 package ru.saynurdinov.task_service.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Path;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.saynurdinov.task_service.dto.BatchItemResultDTO;
+import ru.saynurdinov.task_service.dto.BulkChangeStatusDTO;
+import ru.saynurdinov.task_service.dto.BulkResultDTO;
 import ru.saynurdinov.task_service.dto.ChangeStatusDTO;
 import ru.saynurdinov.task_service.dto.CreateTaskDTO;
+import ru.saynurdinov.task_service.dto.DataFormat;
+import ru.saynurdinov.task_service.dto.PageResponseDTO;
 import ru.saynurdinov.task_service.dto.ResourceResponseDTO;
 import ru.saynurdinov.task_service.dto.TaskDTO;
+import ru.saynurdinov.task_service.dto.TaskFilter;
 import ru.saynurdinov.task_service.dto.UpdateTaskDTO;
 import ru.saynurdinov.task_service.entity.Task;
 import ru.saynurdinov.task_service.entity.User;
 import ru.saynurdinov.task_service.entity.enums.TaskPriority;
 import ru.saynurdinov.task_service.entity.enums.TaskStatus;
+import ru.saynurdinov.task_service.exception.FilterRequiredException;
+import ru.saynurdinov.task_service.exception.InvalidCursorException;
+import ru.saynurdinov.task_service.exception.PreconditionFailedException;
 import ru.saynurdinov.task_service.exception.ResourceNotFoundException;
 import ru.saynurdinov.task_service.mapper.TaskMapper;
+import ru.saynurdinov.task_service.projection.CollectionStamp;
+import ru.saynurdinov.task_service.projection.RankedTaskView;
+import ru.saynurdinov.task_service.projection.TaskView;
+import ru.saynurdinov.task_service.repository.CommentRepository;
 import ru.saynurdinov.task_service.repository.TaskRepository;
 import ru.saynurdinov.task_service.repository.UserRepository;
+import ru.saynurdinov.task_service.security.CurrentUserResolver;
+import ru.saynurdinov.task_service.util.CursorUtils;
+import ru.saynurdinov.task_service.util.ETagUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -50,14 +81,36 @@ public class TaskServiceImplTest {
     @Mock
     private TaskRepository taskRepository;
 
+    @Mock
+    private CommentRepository commentRepository;
+
     @Mock
     private TaskMapper taskMapper;
 
+    @Mock
+    private CurrentUserResolver currentUser;
+
+    @Mock
+    private Validator validator;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private TaskServiceImpl taskService;
 
     private static User authenticatedUser;
 
+    private static User otherUser;
+
+    private final TaskFilter filter = TaskFilter.builder()
+            .status(TaskStatus.TODO)
+            .priority(TaskPriority.HIGH)
+            .build();
+
     @BeforeAll
     static void authenticate() {
         authenticatedUser = User.builder()
@@ -66,17 +119,11 @@ public class TaskServiceImplTest {
                 .password("password")
                 .build();
 
-        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
-                authenticatedUser.getUsername(),
-                authenticatedUser.getPassword(),
-                Collections.emptyList());
-
-        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                userDetails,
-                null,
-                Collections.emptyList());
-
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+        otherUser = User.builder()
+                .id(2L)
+                .username("other")
+                .password("password")
+                .build();
     }
 
     @BeforeEach
@@ -87,51 +134,97 @@ public class TaskServiceImplTest {
     @Test
     void testGetAllByUserId_IdProvidedAndUserFound_ReturnsTaskDTOList() {
         Long id = 1L;
-        User user = User.builder()
-                        .id(id).build();
-
-        Task task = new Task();
-        List<Task> taskList = Collections.singletonList(task);
-        Slice<Task> taskPage = new SliceImpl<>(taskList);
+        TaskView task = view(1L);
+        List<TaskView> taskList = Collections.singletonList(task);
         TaskDTO taskDTO = new TaskDTO();
 
-        when(userRepository.findById(id)).thenReturn(Optional.of(user));
-        when(taskRepository.findAllByUserId(eq(id), any(TaskStatus.class), any(TaskPriority.class), any(PageRequest.class)))
-                .thenReturn(taskPage);
-        when(taskMapper.toDTO(task)).thenReturn(taskDTO);
+        when(userRepository.existsById(id)).thenReturn(true);
+        when(taskRepository.findAllBefore(any(), eq(Long.MAX_VALUE), eq(11)))
+                .thenReturn(taskList)
+                .thenReturn(Collections.emptyList());
+        when(taskMapper.toDTO(eq(task), any())).thenReturn(taskDTO);
 
-        ResourceResponseDTO<List<TaskDTO>> response = taskService.getAllByUserId(id, TaskStatus.TODO, TaskPriority.HIGH, 0, 10);
+        PageResponseDTO<TaskDTO> response = taskService.getAllByUserId(id, filter, null, 0, 10);
 
         assertNotNull(response);
         assertEquals(1, response.getBody().size());
         assertEquals(taskDTO, response.getBody().getFirst());
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    void testGetAllByUserId_CreatedAndAssignedTasks_ReturnsMergedNewestFirst() {
+        Long id = 1L;
+        List<TaskView> created = List.of(view(30L), view(10L));
+        List<TaskView> assigned = List.of(view(20L), view(5L));
+
+        when(userRepository.existsById(id)).thenReturn(true);
+        when(taskRepository.findAllBefore(any(), eq(40L), eq(3)))
+                .thenReturn(created)
+                .thenReturn(assigned);
+        when(taskMapper.toDTO(any(TaskView.class), any())).thenAnswer(invocation -> {
+            TaskDTO taskDTO = new TaskDTO();
+            taskDTO.setId(invocation.getArgument(0, TaskView.class).id());
+            return taskDTO;
+        });
+
+        PageResponseDTO<TaskDTO> response = taskService.getAllByUserId(id, null, CursorUtils.encode(40L), 0, 2);
+
+        assertEquals(List.of(30L, 20L), response.getBody().stream().map(TaskDTO::getId).toList());
+        assertEquals(20L, CursorUtils.decode(response.getNextCursor()));
+        verify(taskRepository, times(2)).findAllBefore(any(), eq(40L), eq(3));
+    }
+
+    @Test
+    void testGetAllByUserId_PageProvidedWithoutCursor_UsesOffsetQuery() {
+        Long id = 1L;
+        TaskView task = view(5L);
+        List<TaskView> taskList = List.of(task, view(4L));
+
+        when(userRepository.existsById(id)).thenReturn(true);
+        when(taskRepository.findAll(any(), eq(2), eq(2))).thenReturn(taskList);
+        when(taskMapper.toDTO(eq(task), any())).thenReturn(new TaskDTO());
+
+        PageResponseDTO<TaskDTO> response = taskService.getAllByUserId(id, null, null, 2, 1);
+
+        assertEquals(1, response.getBody().size());
+        assertEquals(5L, CursorUtils.decode(response.getNextCursor()));
+        verify(taskRepository, never()).findAllBefore(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void testGetAllByUserId_InvalidCursor_ThrowsInvalidCursorException() {
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+
+        assertThrows(InvalidCursorException.class, () ->
+                taskService.getAllByUserId(null, null, "not a cursor", 0, 10));
     }
 
     @Test
     void testGetAllByUserId_IdProvidedAndUserNotFound_ThrowsResourceNotFoundException() {
         Long id = 1L;
 
-        when(userRepository.findById(eq(id))).thenReturn(Optional.empty());
+        when(userRepository.existsById(eq(id))).thenReturn(false);
 
         assertThrows(ResourceNotFoundException.class, () ->
-                taskService.getAllByUserId(id, TaskStatus.TODO, TaskPriority.HIGH, 0, 10));
+                taskService.getAllByUserId(id, filter, null, 0, 10));
     }
 
     @Test
     void testGetAllByUserId_IdNotProvided_ReturnsTaskDTOListOfAuthenticatedUser() {
         Long id = null;
 
-        Task task = new Task();
-        List<Task> taskList = Collections.singletonList(task);
-        Slice<Task> taskPage = new SliceImpl<>(taskList);
+        TaskView task = view(1L);
+        List<TaskView> taskList = Collections.singletonList(task);
         TaskDTO taskDTO = new TaskDTO();
 
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(authenticatedUser));
-        when(taskRepository.findAllByUserId(eq(authenticatedUser.getId()), any(TaskStatus.class), any(TaskPriority.class), any(PageRequest.class)))
-                .thenReturn(taskPage);
-        when(taskMapper.toDTO(task)).thenReturn(taskDTO);
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.findAllBefore(any(), eq(Long.MAX_VALUE), eq(11)))
+                .thenReturn(Collections.emptyList())
+                .thenReturn(taskList);
+        when(taskMapper.toDTO(eq(task), any())).thenReturn(taskDTO);
 
-        ResourceResponseDTO<List<TaskDTO>> response = taskService.getAllByUserId(id, TaskStatus.TODO, TaskPriority.HIGH, 0, 10);
+        PageResponseDTO<TaskDTO> response = taskService.getAllByUserId(id, filter, null, 0, 10);
 
         assertNotNull(response);
         assertEquals(1, response.getBody().size());
@@ -139,14 +232,101 @@ public class TaskServiceImplTest {
 
     }
 
+    @Test
+    void testGetAllCreatedByAuthorId_IdNotProvided_UsesKeysetQuery() {
+        TaskView task = view(1L);
+        TaskDTO taskDTO = new TaskDTO();
+
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.findAllBefore(any(), eq(Long.MAX_VALUE), eq(11))).thenReturn(List.of(task));
+        when(taskMapper.toDTO(eq(task), any())).thenReturn(taskDTO);
+
+        PageResponseDTO<TaskDTO> response = taskService.getAllCreatedByAuthorId(null, filter, null, 0, 10);
+
+        assertEquals(List.of(taskDTO), response.getBody());
+        verify(taskRepository, times(1)).findAllBefore(any(), eq(Long.MAX_VALUE), eq(11));
+    }
+
+    @Test
+    void testSearch_MoreHitsThanSize_ReturnsRankedCursorOfLastHit() {
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.search(authenticatedUser.getId(), "login", null, 0, 3)).thenReturn(List.of(
+                new RankedTaskView(view(7L), 0.5f), new RankedTaskView(view(9L), 0.25f), new RankedTaskView(view(8L), 0.25f)));
+        when(taskMapper.toDTO(any(TaskView.class), any())).thenReturn(new TaskDTO());
+
+        PageResponseDTO<TaskDTO> response = taskService.search("login", null, 2);
+
+        assertEquals(2, response.getBody().size());
+        assertEquals(new CursorUtils.RankedPosition(0.25f, 9L), CursorUtils.decodeRanked(response.getNextCursor()));
+    }
+
+    @Test
+    void testSearch_CursorProvided_ContinuesAfterRankAndId() {
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.search(authenticatedUser.getId(), "login", 0.25f, 9L, 3)).thenReturn(List.of());
+
+        PageResponseDTO<TaskDTO> response = taskService.search("login", CursorUtils.encode(0.25f, 9L), 2);
+
+        assertEquals(List.of(), response.getBody());
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    void testExport_Csv_WritesHeaderAndEscapedRows() throws Exception {
+        TaskView task = new TaskView(1L, "title, \"quoted\"", "description", TaskPriority.HIGH, TaskStatus.TODO, 0,
+                1L, "username", "username@mail.com", 2L, "other", "other@mail.com", 0L, Instant.EPOCH);
+
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.streamAll(any(), anyInt())).thenReturn(Stream.of(task));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        taskService.export(null, filter, DataFormat.CSV).writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, lines.length);
+        assertEquals("1,\"title, \"\"quoted\"\"\",description,HIGH,TODO,0,1,username,username@mail.com,2,other,other@mail.com,0,1970-01-01T00:00:00Z", lines[1]);
+    }
+
+    @Test
+    void testExport_Ndjson_WritesOneTaskPerLine() throws Exception {
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.streamAll(any(), anyInt())).thenReturn(Stream.of(view(2L), view(1L)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        taskService.export(null, filter, DataFormat.NDJSON).writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(2L, objectMapper.readTree(lines[0]).get("id").asLong());
+    }
+
+    @Test
+    void testExport_UserNotFound_ThrowsResourceNotFoundExceptionBeforeStreaming() {
+        when(userRepository.existsById(3L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> taskService.export(3L, filter, DataFormat.CSV));
+        verify(taskRepository, never()).streamAll(any(), anyInt());
+    }
+
+    @Test
+    void testGetStampOfAll_IdNotProvided_ReturnsStampOfAuthenticatedUserTasks() {
+        CollectionStamp stamp = new CollectionStamp(2, Instant.EPOCH);
+
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.findStamp(any())).thenReturn(stamp);
+
+        assertEquals(stamp, taskService.getStampOfAll(null, filter));
+        verify(taskRepository, never()).findAllBefore(any(), anyLong(), anyInt());
+    }
+
     @Test
     void testGetById_TaskFound_ReturnsTaskDTO() {
         long taskId = 1L;
-        Task task = new Task();
+        TaskView task = view(taskId);
         TaskDTO taskDTO = new TaskDTO();
 
-        when(taskRepository.findById(eq(taskId))).thenReturn(Optional.of(task));
-        when(taskMapper.toDTO(task)).thenReturn(taskDTO);
+        when(taskRepository.findViewById(eq(taskId))).thenReturn(Optional.of(task));
+        when(taskMapper.toDTO(eq(task), any())).thenReturn(taskDTO);
 
         ResourceResponseDTO<TaskDTO> response = taskService.getById(taskId);
 
@@ -158,7 +338,7 @@ public class TaskServiceImplTest {
     void testGetById_TaskNotFound_ThrowsResourceNotFoundException() {
         long taskId = 1L;
 
-        when(taskRepository.findById(eq(taskId))).thenReturn(Optional.empty());
+        when(taskRepository.findViewById(eq(taskId))).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> taskService.getById(taskId));
     }
@@ -172,10 +352,10 @@ public class TaskServiceImplTest {
 
         TaskDTO taskDTO = new TaskDTO();
 
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(authenticatedUser));
+        when(currentUser.getReference()).thenReturn(authenticatedUser);
         when(userRepository.findById(createTaskDTO.getExecutorId())).thenReturn(Optional.of(executor));
-        when(taskRepository.save(any(Task.class))).thenReturn(task);
-        when(taskMapper.toDTO(task)).thenReturn(taskDTO);
+        when(taskRepository.saveAndFlush(any(Task.class))).thenReturn(task);
+        when(taskMapper.toDTO(eq(task), any())).thenReturn(taskDTO);
 
         ResourceResponseDTO<TaskDTO> response = taskService.create(createTaskDTO);
 
@@ -184,6 +364,36 @@ public class TaskServiceImplTest {
 
     }
 
+    @Test
+    void testCreateBatch_MixedItems_CreatesValidItemsAndReportsOthers() {
+        CreateTaskDTO valid = new CreateTaskDTO("Test", "Test", TaskPriority.HIGH, LocalDateTime.now().plusDays(1), 2L);
+        CreateTaskDTO invalid = new CreateTaskDTO("", "Test", TaskPriority.HIGH, LocalDateTime.now().plusDays(1), 2L);
+        CreateTaskDTO unknownExecutor = new CreateTaskDTO("Test", "Test", TaskPriority.HIGH, LocalDateTime.now().plusDays(1), 3L);
+
+        @SuppressWarnings("unchecked")
+        ConstraintViolation<CreateTaskDTO> violation = mock(ConstraintViolation.class);
+        Path path = mock(Path.class);
+        when(path.toString()).thenReturn("title");
+        when(violation.getPropertyPath()).thenReturn(path);
+        when(violation.getMessage()).thenReturn("Title can't be blank");
+        when(validator.validate(any(CreateTaskDTO.class))).thenReturn(Set.of());
+        when(validator.validate(invalid)).thenReturn(Set.of(violation));
+        when(userRepository.findAllById(Set.of(2L, 3L))).thenReturn(List.of(otherUser));
+        when(currentUser.getReference()).thenReturn(authenticatedUser);
+        TaskDTO taskDTO = new TaskDTO();
+        when(taskMapper.toDTO(any(Task.class), any())).thenReturn(taskDTO);
+
+        ResourceResponseDTO<List<BatchItemResultDTO<TaskDTO>>> response =
+                taskService.createBatch(Arrays.asList(valid, invalid, unknownExecutor, null));
+
+        List<BatchItemResultDTO<TaskDTO>> results = response.getBody();
+        assertEquals(List.of(201, 400, 404, 400), results.stream().map(BatchItemResultDTO::getStatus).toList());
+        assertEquals(taskDTO, results.getFirst().getBody());
+        assertEquals("{title=Title can't be blank}", results.get(1).getMessage());
+        verify(userRepository, times(1)).findAllById(any());
+        verify(taskRepository).saveAllAndFlush(argThat((List<Task> tasks) -> tasks.size() == 1));
+    }
+
     @Test
     void testCreate_ExecutorNotFound_ThrowsResourceNotFoundException() {
         CreateTaskDTO createTaskDTO = new CreateTaskDTO("Test", "Test", TaskPriority.HIGH, LocalDateTime.now().plusDays(1), 2L);
@@ -199,18 +409,19 @@ public class TaskServiceImplTest {
         Long taskId = 1L;
         UpdateTaskDTO updateTaskDTO = new UpdateTaskDTO("Test", "Test", TaskPriority.HIGH, TaskStatus.TODO, LocalDateTime.now().plusDays(1), 1L);
 
-        Task task = new Task();
-        authenticatedUser.setCreatedTasks(Collections.singletonList(task));
+        Task task = Task.builder()
+                .creator(authenticatedUser)
+                .build();
         TaskDTO taskDTO = new TaskDTO();
         User executor = new User();
 
         when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(authenticatedUser));
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
         when(userRepository.findById(updateTaskDTO.getExecutorId())).thenReturn(Optional.of(executor));
-        when(taskRepository.save(any(Task.class))).thenReturn(task);
-        when(taskMapper.toDTO(task)).thenReturn(taskDTO);
+        when(taskRepository.saveAndFlush(any(Task.class))).thenReturn(task);
+        when(taskMapper.toDTO(eq(task), any())).thenReturn(taskDTO);
 
-        ResourceResponseDTO<TaskDTO> response = taskService.update(taskId, updateTaskDTO);
+        ResourceResponseDTO<TaskDTO> response = taskService.update(taskId, updateTaskDTO, null);
 
         assertNotNull(response);
         assertEquals(taskDTO, response.getBody());
@@ -223,7 +434,7 @@ public class TaskServiceImplTest {
 
         when(taskRepository.findById(taskId)).thenReturn(Optional.empty());
 
-        assertThrows(ResourceNotFoundException.class, () -> taskService.update(taskId, updateTaskDTO));
+        assertThrows(ResourceNotFoundException.class, () -> taskService.update(taskId, updateTaskDTO, null));
     }
 
     @Test
@@ -231,77 +442,194 @@ public class TaskServiceImplTest {
         Long taskId = 1L;
         UpdateTaskDTO updateTaskDTO = new UpdateTaskDTO("Test", "Test", TaskPriority.HIGH, TaskStatus.TODO, LocalDateTime.now().plusDays(1), 1L);
 
-        Task task = new Task();
-        authenticatedUser.setCreatedTasks(Collections.emptyList());
+        Task task = Task.builder()
+                .creator(otherUser)
+                .build();
 
         when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(authenticatedUser));
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
 
-        assertThrows(AccessDeniedException.class, () -> taskService.update(taskId, updateTaskDTO));
+        assertThrows(AccessDeniedException.class, () -> taskService.update(taskId, updateTaskDTO, null));
     }
 
     @Test
-    void testUpdate_TaskFoundAndTaskBelongsUserAndExecutorNotFound_ThrowsResourceNotFoundException() {
+    void testUpdate_TaskBelongsUserAndVersionChanged_ThrowsPreconditionFailedException() {
         Long taskId = 1L;
         UpdateTaskDTO updateTaskDTO = new UpdateTaskDTO("Test", "Test", TaskPriority.HIGH, TaskStatus.TODO, LocalDateTime.now().plusDays(1), 1L);
 
         Task task = Task.builder()
                 .creator(authenticatedUser)
+                .version(4L)
                 .build();
-        authenticatedUser.setCreatedTasks(Collections.singletonList(task));
 
         when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(authenticatedUser));
-        when(userRepository.findById(updateTaskDTO.getExecutorId())).thenReturn(Optional.empty());
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
 
-        assertThrows(ResourceNotFoundException.class, () -> taskService.update(taskId, updateTaskDTO));
+        assertThrows(PreconditionFailedException.class,
+                () -> taskService.update(taskId, updateTaskDTO, Set.of(ETagUtils.of(3L, task.getUpdatedAt()))));
+        verify(taskRepository, never()).saveAndFlush(any(Task.class));
     }
 
+    @Test
+    void testUpdate_TaskBelongsUserAndSameVersionWithOtherTimestamp_ThrowsPreconditionFailedException() {
+        Long taskId = 1L;
+        UpdateTaskDTO updateTaskDTO = new UpdateTaskDTO("Test", "Test", TaskPriority.HIGH, TaskStatus.TODO, LocalDateTime.now().plusDays(1), 1L);
+        Instant updatedAt = Instant.parse("2024-01-01T00:00:01Z");
+
+        Task task = Task.builder()
+                .creator(authenticatedUser)
+                .version(3L)
+                .updatedAt(updatedAt)
+                .build();
+
+        when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+
+        Set<String> staleETag = Set.of(ETagUtils.of(3L, updatedAt.minusSeconds(1)));
+        assertThrows(PreconditionFailedException.class, () -> taskService.update(taskId, updateTaskDTO, staleETag));
+        assertThrows(PreconditionFailedException.class, () -> taskService.update(taskId, updateTaskDTO, Set.of("\"3-garbage\"")));
+        verify(taskRepository, never()).saveAndFlush(any(Task.class));
+    }
 
     @Test
-    void testChangeStatus_TaskFoundAndTaskAssignedToUser_ReturnsDtoOfTaskWithUpdatedStatus() {
+    void testUpdate_TaskFoundAndTaskBelongsUserAndExecutorNotFound_ThrowsResourceNotFoundException() {
         Long taskId = 1L;
-        ChangeStatusDTO changeStatusDTO = new ChangeStatusDTO(TaskStatus.TODO);
+        UpdateTaskDTO updateTaskDTO = new UpdateTaskDTO("Test", "Test", TaskPriority.HIGH, TaskStatus.TODO, LocalDateTime.now().plusDays(1), 1L);
 
         Task task = Task.builder()
-                .executor(authenticatedUser)
+                .creator(authenticatedUser)
                 .build();
-        authenticatedUser.setAssignedTasks(Collections.singletonList(task));
-        TaskDTO taskDTO = new TaskDTO();
 
         when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(authenticatedUser));
-        when(taskRepository.save(any(Task.class))).thenReturn(task);
-        when(taskMapper.toDTO(task)).thenReturn(taskDTO);
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(userRepository.findById(updateTaskDTO.getExecutorId())).thenReturn(Optional.empty());
 
-        ResourceResponseDTO<TaskDTO> response = taskService.changeStatus(taskId, changeStatusDTO);
+        assertThrows(ResourceNotFoundException.class, () -> taskService.update(taskId, updateTaskDTO, null));
+    }
+
+
+    @Test
+    void testChangeStatus_TaskFoundAndTaskAssignedToUser_ReturnsDtoOfTaskWithUpdatedStatus() {
+        long taskId = 1L;
+        ChangeStatusDTO changeStatusDTO = new ChangeStatusDTO(TaskStatus.DONE);
+
+        TaskView task = view(taskId);
+        TaskDTO taskDTO = new TaskDTO();
+
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.updateStatus(taskId, authenticatedUser.getId(), TaskStatus.DONE, null)).thenReturn(Optional.of(task));
+        when(taskMapper.toDTO(eq(task), any())).thenReturn(taskDTO);
+
+        ResourceResponseDTO<TaskDTO> response = taskService.changeStatus(taskId, changeStatusDTO, null);
 
         assertNotNull(response);
         assertEquals(taskDTO, response.getBody());
+        verify(taskRepository, never()).findExecutorIdById(anyLong());
     }
 
     @Test
     void testChangeStatus_TaskNotFound_ThrowsResourceNotFoundException() {
-        Long taskId = 1L;
+        long taskId = 1L;
         ChangeStatusDTO changeStatusDTO = new ChangeStatusDTO(TaskStatus.TODO);
 
-        when(taskRepository.findById(taskId)).thenReturn(Optional.empty());
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.updateStatus(taskId, authenticatedUser.getId(), TaskStatus.TODO, null)).thenReturn(Optional.empty());
+        when(taskRepository.findExecutorIdById(taskId)).thenReturn(Optional.empty());
 
-        assertThrows(ResourceNotFoundException.class, () -> taskService.changeStatus(taskId, changeStatusDTO));
+        assertThrows(ResourceNotFoundException.class, () -> taskService.changeStatus(taskId, changeStatusDTO, null));
     }
 
     @Test
     void testChangeStatus_TaskFoundAndTaskDoNotAssignedToUser_ThrowsAccessDeniedException() {
-        Long taskId = 1L;
+        long taskId = 1L;
         ChangeStatusDTO changeStatusDTO = new ChangeStatusDTO(TaskStatus.TODO);
 
-        Task task = new Task();
-        authenticatedUser.setAssignedTasks(Collections.emptyList());
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.updateStatus(taskId, authenticatedUser.getId(), TaskStatus.TODO, null)).thenReturn(Optional.empty());
+        when(taskRepository.findExecutorIdById(taskId)).thenReturn(Optional.of(otherUser.getId()));
 
-        when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(authenticatedUser));
+        assertThrows(AccessDeniedException.class, () -> taskService.changeStatus(taskId, changeStatusDTO, null));
+    }
+
+    @Test
+    void testChangeStatus_TaskAssignedToUserAndVersionChanged_ThrowsPreconditionFailedException() {
+        long taskId = 1L;
+        ChangeStatusDTO changeStatusDTO = new ChangeStatusDTO(TaskStatus.DONE);
 
-        assertThrows(AccessDeniedException.class, () -> taskService.changeStatus(taskId, changeStatusDTO));
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.updateStatus(taskId, authenticatedUser.getId(), TaskStatus.DONE, Set.of("\"3-0\""))).thenReturn(Optional.empty());
+        when(taskRepository.findExecutorIdById(taskId)).thenReturn(Optional.of(authenticatedUser.getId()));
+
+        assertThrows(PreconditionFailedException.class, () -> taskService.changeStatus(taskId, changeStatusDTO, Set.of("\"3-0\"")));
+    }
+
+    @Test
+    void testChangeStatusAll_MixedIds_ReportsAffectedDeniedAndNotFoundIds() {
+        BulkChangeStatusDTO bulkChangeStatusDTO = new BulkChangeStatusDTO(List.of(1L, 2L, 3L, 1L), TaskStatus.DONE);
+
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.updateStatusAll(any(), eq(authenticatedUser.getId()), eq(TaskStatus.DONE))).thenReturn(List.of(1L));
+        when(taskRepository.findExistingIds(any())).thenReturn(List.of(1L, 2L));
+
+        ResourceResponseDTO<BulkResultDTO> response = taskService.changeStatusAll(bulkChangeStatusDTO);
+
+        assertEquals(List.of(1L), response.getBody().getAffectedIds());
+        assertEquals(List.of(2L), response.getBody().getDeniedIds());
+        assertEquals(List.of(3L), response.getBody().getNotFoundIds());
+    }
+
+    @Test
+    void testChangeStatusAll_AllIdsUpdated_SkipsExistenceQuery() {
+        BulkChangeStatusDTO bulkChangeStatusDTO = new BulkChangeStatusDTO(List.of(1L, 2L), TaskStatus.DONE);
+
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.updateStatusAll(any(), eq(authenticatedUser.getId()), eq(TaskStatus.DONE))).thenReturn(List.of(2L, 1L));
+
+        ResourceResponseDTO<BulkResultDTO> response = taskService.changeStatusAll(bulkChangeStatusDTO);
+
+        verify(taskRepository, never()).findExistingIds(any());
+        assertEquals(List.of(1L, 2L), response.getBody().getAffectedIds());
+    }
+
+    @Test
+    void testReassignAll_ExecutorFound_ReassignsCreatedTasksAndReportsAssignedOnes() {
+        when(userRepository.existsById(otherUser.getId())).thenReturn(true);
+        when(userRepository.getReferenceById(otherUser.getId())).thenReturn(otherUser);
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.reassignAll(authenticatedUser.getId(), filter, otherUser.getId())).thenReturn(List.of(5L, 3L));
+        when(taskRepository.findIds(any())).thenReturn(List.of(4L));
+
+        ResourceResponseDTO<BulkResultDTO> response = taskService.reassignAll(filter, otherUser.getId());
+
+        assertEquals(List.of(5L, 3L), response.getBody().getAffectedIds());
+        assertEquals(List.of(4L), response.getBody().getDeniedIds());
+    }
+
+    @Test
+    void testReassignAll_ExecutorNotFound_ThrowsResourceNotFoundException() {
+        when(userRepository.existsById(otherUser.getId())).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> taskService.reassignAll(filter, otherUser.getId()));
+        verify(taskRepository, never()).reassignAll(anyLong(), any(), anyLong());
+    }
+
+    @Test
+    void testDeleteAll_DeletesCreatedTasksAndReportsAssignedOnes() {
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskRepository.deleteAllCreated(authenticatedUser.getId(), filter)).thenReturn(List.of(5L, 3L));
+        when(taskRepository.findIds(any())).thenReturn(List.of(4L));
+
+        ResourceResponseDTO<BulkResultDTO> response = taskService.deleteAll(filter, false);
+
+        assertEquals(List.of(5L, 3L), response.getBody().getAffectedIds());
+        assertEquals(List.of(4L), response.getBody().getDeniedIds());
+    }
+
+    @Test
+    void testDeleteAll_NoFilterWithoutConfirmation_ThrowsFilterRequiredException() {
+        assertThrows(FilterRequiredException.class, () -> taskService.deleteAll(new TaskFilter(), false));
+
+        verify(taskRepository, never()).deleteAllCreated(anyLong(), any());
     }
 
     @Test
@@ -309,18 +637,17 @@ public class TaskServiceImplTest {
         Long taskId = 1L;
 
         Task task = Task.builder()
-                .executor(authenticatedUser)
+                .creator(authenticatedUser)
                 .build();
-        authenticatedUser.setCreatedTasks(Collections.singletonList(task));
         TaskDTO taskDTO = new TaskDTO();
 
         when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(authenticatedUser));
-        when(taskMapper.toDTO(task)).thenReturn(taskDTO);
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
+        when(taskMapper.toDTO(eq(task), any())).thenReturn(taskDTO);
 
-        ResourceResponseDTO<TaskDTO> response = taskService.delete(taskId);
+        ResourceResponseDTO<TaskDTO> response = taskService.delete(taskId, null);
 
-        verify(taskRepository).delete(task);
+        verify(taskRepository).deleteWithComments(task);
         assertNotNull(response);
         assertEquals(taskDTO, response.getBody());
     }
@@ -331,25 +658,25 @@ public class TaskServiceImplTest {
 
         when(taskRepository.findById(taskId)).thenReturn(Optional.empty());
 
-        assertThrows(ResourceNotFoundException.class, () -> taskService.delete(taskId));
+        assertThrows(ResourceNotFoundException.class, () -> taskService.delete(taskId, null));
     }
 
     @Test
     void testDelete_TaskFoundAndTaskDoNotAssignedToUser_ThrowsAccessDeniedException() {
         Long taskId = 1L;
 
-        Task task = new Task();
-        authenticatedUser.setCreatedTasks(Collections.emptyList());
+        Task task = Task.builder()
+                .creator(otherUser)
+                .build();
 
         when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(authenticatedUser));
+        when(currentUser.getUserId()).thenReturn(authenticatedUser.getId());
 
-        assertThrows(AccessDeniedException.class, () -> taskService.delete(taskId));
+        assertThrows(AccessDeniedException.class, () -> taskService.delete(taskId, null));
     }
 
-
-
-
-
-
+    private static TaskView view(long id) {
+        return new TaskView(id, "title", "description", TaskPriority.HIGH, TaskStatus.TODO, 0,
+                1L, "username", "username@mail.com", 2L, "other", "other@mail.com", 0L, Instant.EPOCH);
+    }
 }
@@ -1,17 +1,22 @@
 package ru.saynurdinov.task_service.service;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import ru.saynurdinov.task_service.dto.AuthResponseDTO;
 import ru.saynurdinov.task_service.dto.LoginDTO;
+import ru.saynurdinov.task_service.dto.RefreshTokenDTO;
 import ru.saynurdinov.task_service.dto.RegisterDTO;
 import ru.saynurdinov.task_service.dto.UserDTO;
 import ru.saynurdinov.task_service.entity.User;
@@ -19,8 +24,14 @@ import ru.saynurdinov.task_service.exception.ResourceNotFoundException;
 import ru.saynurdinov.task_service.exception.UserAlreadyExistsException;
 import ru.saynurdinov.task_service.mapper.UserMapper;
 import ru.saynurdinov.task_service.repository.UserRepository;
+import ru.saynurdinov.task_service.security.TokenRevocationList;
+import ru.saynurdinov.task_service.security.UserCache;
 import ru.saynurdinov.task_service.util.JwtUtils;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -29,6 +40,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -50,6 +63,15 @@ public class UserServiceImplTest {
     @Mock
     private  UserMapper userMapper;
 
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    @Spy
+    private UserCache userCache = new UserCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -85,6 +107,39 @@ public class UserServiceImplTest {
         assert(userDetails.getPassword().equals(password));
     }
 
+    @Test
+    void testLoadByUsername_UserCached_DoesNotQueryRepositoryAgain() {
+        String email = "test@example.com";
+        String password = "password";
+
+        User user = User.builder()
+                .email(email)
+                .password(password)
+                .build();
+
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+
+        userService.loadUserByUsername(email);
+        UserDetails userDetails = userService.loadUserByUsername(email);
+
+        verify(userRepository, times(1)).findByEmail(email);
+        assertEquals(email, userDetails.getUsername());
+        assertEquals(password, userDetails.getPassword());
+    }
+
+    @Test
+    void testUpdatePassword_ReturnsUserWithNewPassword() {
+        String email = "test@example.com";
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+                email, "oldHash", Collections.emptyList());
+
+        UserDetails updated = userService.updatePassword(userDetails, "newHash");
+
+        verify(userRepository).updatePassword(email, "newHash");
+        assertEquals(email, updated.getUsername());
+        assertEquals("newHash", updated.getPassword());
+    }
+
     @Test
     void testAddUser_UserAlreadyExistsByEmail_ThrowsUserAlreadyExistsException() {
         RegisterDTO registerDTO = new RegisterDTO();
@@ -117,7 +172,8 @@ public class UserServiceImplTest {
         when(userRepository.existsByEmail(registerDTO.getEmail())).thenReturn(false);
         when(userRepository.existsByUsername(registerDTO.getUsername())).thenReturn(false);
         when(passwordEncoder.encode(registerDTO.getPassword())).thenReturn("encodedPassword");
-        when(jwtUtils.generateToken(any(UserDetails.class))).thenReturn("jwt");
+        when(jwtUtils.generateToken(any(User.class))).thenReturn("jwt");
+        when(refreshTokenService.create(any(User.class))).thenReturn("refresh");
         when(userMapper.toDTO(any(User.class))).thenReturn(userDTO);
 
         AuthResponseDTO response = userService.addUser(registerDTO);
@@ -125,6 +181,7 @@ public class UserServiceImplTest {
         verify(userRepository).save(any());
         assertNotNull(response);
         assertEquals(response.getJwtToken(), "jwt");
+        assertEquals("refresh", response.getRefreshToken());
         assertEquals(response.getUserDTO(), userDTO);
 
     }
@@ -143,10 +200,11 @@ public class UserServiceImplTest {
         when(userDetails.getUsername()).thenReturn(loginDTO.getEmail());
 
         User user = new User();
+        user.setId(1L);
         user.setEmail(loginDTO.getEmail());
         UserDTO userDTO = new UserDTO();
 
-        when(jwtUtils.generateToken(any(UserDetails.class))).thenReturn("jwtToken");
+        when(jwtUtils.generateToken(user)).thenReturn("jwtToken");
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
         when(userMapper.toDTO(user)).thenReturn(userDTO);
 
@@ -154,9 +212,68 @@ public class UserServiceImplTest {
         AuthResponseDTO response = userService.signIn(loginDTO);
 
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(jwtUtils).generateToken(any(UserDetails.class));
+        verify(jwtUtils).generateToken(user);
+        assertEquals("jwtToken", response.getJwtToken());
+        assertEquals(userDTO, response.getUserDTO());
+    }
+
+    @Test
+    void testRefresh_ValidToken_ReturnsNewTokenPair() {
+        RefreshTokenDTO refreshTokenDTO = new RefreshTokenDTO();
+        refreshTokenDTO.setRefreshToken("oldRefresh");
+
+        User user = new User();
+        UserDTO userDTO = new UserDTO();
+
+        when(refreshTokenService.rotate("oldRefresh")).thenReturn(user);
+        when(jwtUtils.generateToken(user)).thenReturn("jwtToken");
+        when(refreshTokenService.create(user)).thenReturn("newRefresh");
+        when(userMapper.toDTO(user)).thenReturn(userDTO);
+
+        AuthResponseDTO response = userService.refresh(refreshTokenDTO);
+
         assertEquals("jwtToken", response.getJwtToken());
+        assertEquals("newRefresh", response.getRefreshToken());
         assertEquals(userDTO, response.getUserDTO());
     }
 
+    @Test
+    void testRefresh_InvalidToken_ThrowsBadCredentialsException() {
+        RefreshTokenDTO refreshTokenDTO = new RefreshTokenDTO();
+        refreshTokenDTO.setRefreshToken("oldRefresh");
+
+        when(refreshTokenService.rotate("oldRefresh")).thenThrow(new BadCredentialsException("Refresh token is invalid"));
+
+        assertThrows(BadCredentialsException.class, () -> userService.refresh(refreshTokenDTO));
+        verify(jwtUtils, never()).generateToken(any(User.class));
+    }
+
+    @Test
+    void testSignOut_WithAccessToken_RevokesBothTokens() {
+        RefreshTokenDTO refreshTokenDTO = new RefreshTokenDTO();
+        refreshTokenDTO.setRefreshToken("refresh");
+
+        Instant expiration = Instant.now().plusSeconds(60);
+        Claims claims = mock(Claims.class);
+        when(claims.getId()).thenReturn("jti");
+        when(claims.getExpiration()).thenReturn(Date.from(expiration));
+        when(jwtUtils.getClaims("jwtToken")).thenReturn(claims);
+
+        userService.signOut(refreshTokenDTO, "jwtToken");
+
+        verify(refreshTokenService).revoke("refresh");
+        verify(tokenRevocationList).revoke("jti", Date.from(expiration).toInstant());
+    }
+
+    @Test
+    void testSignOut_WithoutAccessToken_RevokesRefreshTokenOnly() {
+        RefreshTokenDTO refreshTokenDTO = new RefreshTokenDTO();
+        refreshTokenDTO.setRefreshToken("refresh");
+
+        userService.signOut(refreshTokenDTO, null);
+
+        verify(refreshTokenService).revoke("refresh");
+        verify(tokenRevocationList, never()).revoke(anyString(), any());
+    }
+
 }